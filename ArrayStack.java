@@ -1,14 +1,27 @@
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
-import java.lang.reflect.InvocationTargetException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 /**
  * Represents a stack implemented using an array.
+ * The stack either has a fixed capacity, or grows geometrically up to a maximum capacity
+ * and shrinks back once it is mostly empty.
  *
  * @param <E> the type of elements stored in the stack, must implement Cloneable
  */
 public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
+    /**
+     * The maximum capacity to use for a growable stack without an upper bound.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE - 8;
+    private static final int MIN_GROWTH = 8;
+
     private Object[] array;
     private int top;
+    private final int initialCapacity;
     private final int capacity;
+    private final Cloner<E> cloner;
     /**
      * Constructs an ArrayStack with the specified capacity.
      *
@@ -16,11 +29,43 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
      * @throws NegativeCapacityException if the specified capacity is negative
      */
     public ArrayStack(int capacity) {
-        if (capacity < 0) {
+        this(capacity, capacity);
+    }
+    /**
+     * Constructs a growable ArrayStack. The backing array starts at the initial capacity, doubles whenever
+     * it is full until it reaches the maximum capacity, and halves, but never below the initial capacity,
+     * whenever pops leave it no more than a quarter full.
+     *
+     * @param initialCapacity the number of elements the stack can hold before it first grows
+     * @param maxCapacity     the maximum number of elements the stack can hold, or {@link #UNBOUNDED}
+     * @throws NegativeCapacityException if either capacity is negative
+     * @throws IllegalArgumentException  if the maximum capacity is smaller than the initial capacity
+     *                                   or larger than {@link #UNBOUNDED}
+     */
+    public ArrayStack(int initialCapacity, int maxCapacity) {
+        this(initialCapacity, maxCapacity, Cloner.defaultCloner());
+    }
+    /**
+     * Constructs a growable ArrayStack that clones its elements with the given cloner.
+     *
+     * @param initialCapacity the number of elements the stack can hold before it first grows
+     * @param maxCapacity     the maximum number of elements the stack can hold, or {@link #UNBOUNDED}
+     * @param cloner          the cloner used by {@link #clone()} to clone the elements
+     * @throws NegativeCapacityException if either capacity is negative
+     * @throws IllegalArgumentException  if the maximum capacity is smaller than the initial capacity
+     *                                   or larger than {@link #UNBOUNDED}
+     */
+    public ArrayStack(int initialCapacity, int maxCapacity, Cloner<E> cloner) {
+        if (initialCapacity < 0 || maxCapacity < 0) {
             throw new NegativeCapacityException();
         }
-        this.capacity = capacity;
-        this.array = new Object[capacity];
+        if (maxCapacity < initialCapacity || maxCapacity > UNBOUNDED) {
+            throw new IllegalArgumentException("Invalid maximum capacity: " + maxCapacity);
+        }
+        this.initialCapacity = initialCapacity;
+        this.capacity = maxCapacity;
+        this.cloner = cloner;
+        this.array = new Object[initialCapacity];
         this.top = -1;
     }
     /**
@@ -31,11 +76,27 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
      */
     @Override
     public void push(E element) {
-        if (isFull()) {
+        if (!tryPush(element)) {
             throw new StackOverflowException();
         }
+    }
+    /**
+     * Adds an element to the top of the stack if the stack is not full.
+     *
+     * @param element the element to be pushed onto the stack
+     * @return true if the element was pushed, false if the stack is full
+     */
+    @Override
+    public boolean tryPush(E element) {
+        if (isFull()) {
+            return false;
+        }
+        if (top == array.length - 1) {
+            grow(top + 2);
+        }
         top++;
         array[top] = element;
+        return true;
     }
     /**
      * Removes and returns the element at the top of the stack.
@@ -49,9 +110,22 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
         if (isEmpty()) {
             throw new EmptyStackException();
         }
-        E element = (E) array[top];
+        return pollOrNull();
+    }
+    /**
+     * Removes and returns the element at the top of the stack, or returns null if the stack is empty.
+     *
+     * @return the element at the top of the stack, or null if the stack is empty
+     */
+    @Override
+    public E pollOrNull() {
+        if (isEmpty()) {
+            return null;
+        }
+        E element = elementAt(array, top);
         array[top] = null;
         top--;
+        shrinkIfSparse();
         return element;
     }
     /**
@@ -66,9 +140,76 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
         if (isEmpty()) {
             throw new EmptyStackException();
         }
-        E element = (E) array[top];
+        E element = elementAt(array, top);
         return element;
     }
+    /**
+     * Pushes all elements of the array in order with a single capacity check and a single copy.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @throws StackOverflowException if the stack cannot hold all the elements, in which case none is pushed
+     */
+    @Override
+    public void pushAll(E[] elements) {
+        pushAll((Object[]) elements, elements.length);
+    }
+    /**
+     * Pushes all elements of the collection in iteration order with a single capacity check and a single copy.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @throws StackOverflowException if the stack cannot hold all the elements, in which case none is pushed
+     */
+    @Override
+    public void pushAll(Collection<? extends E> elements) {
+        Object[] copy = elements.toArray();
+        pushAll(copy, copy.length);
+    }
+    /**
+     * Pops the given number of elements into the start of the array with a single copy,
+     * the former top element being stored last.
+     *
+     * @param count       the number of elements to pop
+     * @param destination the array receiving the popped elements
+     * @throws EmptyStackException      if the stack holds fewer than count elements, in which case none is popped
+     * @throws IllegalArgumentException if count is negative or larger than the array
+     */
+    @Override
+    public void popN(int count, E[] destination) {
+        if (count < 0 || count > destination.length) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        if (count > size()) {
+            throw new EmptyStackException();
+        }
+        int from = top + 1 - count;
+        System.arraycopy(array, from, destination, 0, count);
+        Arrays.fill(array, from, top + 1, null);
+        top = from - 1;
+        shrinkIfSparse();
+    }
+    /**
+     * Pops every element of the stack into the collection, from top to bottom.
+     * An element is only removed once the collection has accepted it, so if adding fails,
+     * the elements not yet added stay on the stack.
+     *
+     * @param destination the collection receiving the popped elements
+     * @return the number of elements popped
+     */
+    @Override
+    public int drainTo(Collection<? super E> destination) {
+        int drained = 0;
+        try {
+            while (top >= 0) {
+                destination.add(elementAt(array, top));
+                array[top] = null;
+                top--;
+                drained++;
+            }
+        } finally {
+            shrinkIfSparse();
+        }
+        return drained;
+    }
     /**
      * Returns the number of elements in the stack.
      *
@@ -97,24 +238,77 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
         return top == capacity - 1;
     }
     /**
-     * Creates a shallow copy of the stack.
+     * Pushes the first elements of the array, growing the backing array at most once.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @param length   the number of elements to push
+     * @throws StackOverflowException if the stack cannot hold all the elements
+     */
+    private void pushAll(Object[] elements, int length) {
+        if (length > capacity - (top + 1)) {
+            throw new StackOverflowException();
+        }
+        int needed = top + 1 + length;
+        if (needed > array.length) {
+            grow(needed);
+        }
+        System.arraycopy(elements, 0, array, top + 1, length);
+        top = needed - 1;
+    }
+    /**
+     * Doubles the backing array, or more if needed, without exceeding the maximum capacity.
+     *
+     * @param needed the number of elements the backing array must be able to hold
+     */
+    private void grow(int needed) {
+        long doubled = Math.max(Math.max(array.length * 2L, MIN_GROWTH), needed);
+        int length = (int) Math.min(capacity, doubled);
+        Object[] grown = new Object[length];
+        System.arraycopy(array, 0, grown, 0, top + 1);
+        array = grown;
+    }
+    /**
+     * Halves the backing array, without going below the initial capacity, as long as it is no more than
+     * a quarter full, so that a single copy fits it to the remaining elements after popping many at once.
+     * Growing at full and shrinking at a quarter leaves room between the two, so alternating pushes and pops
+     * never resize repeatedly.
+     */
+    private void shrinkIfSparse() {
+        int length = array.length;
+        while (length > initialCapacity && top + 1 <= length / 4) {
+            length = Math.max(length / 2, initialCapacity);
+        }
+        if (length < array.length) {
+            Object[] shrunk = new Object[length];
+            System.arraycopy(array, 0, shrunk, 0, top + 1);
+            array = shrunk;
+        }
+    }
+    /**
+     * Returns the element stored at the given index of a backing array.
+     * The cast cannot fail, since the backing arrays only ever hold elements pushed as E.
+     *
+     * @param elements the backing array
+     * @param index    the index of the element
+     * @param <E>      the type of elements stored in the stack
+     * @return the element at the index
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> E elementAt(Object[] elements, int index) {
+        return (E) elements[index];
+    }
+    /**
+     * Creates a copy of the stack whose elements are cloned by the stack's {@link Cloner}.
      *
      * @return a cloned instance of the stack
+     * @throws StackException if an element cannot be cloned
      */
     @Override
     public ArrayStack<E> clone() {
         try {
             ArrayStack<E> clonedStack = (ArrayStack<E>) super.clone();
             clonedStack.array = array.clone();
-
-            for (int i = 0; i <= top; i++) {
-                try {
-                    clonedStack.array[i] = array[i].getClass().getDeclaredMethod("clone").invoke(array[i]);
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    return null;
-                }
-            }
-
+            cloner.cloneAll(clonedStack.array, top + 1);
             return clonedStack;
         } catch (CloneNotSupportedException e) {
             return null;
@@ -129,6 +323,96 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
     public Iterator<E> iterator() {
         return new StackIterator<E>();
     }
+    /**
+     * Returns a spliterator over the elements in the stack, from top to bottom, that splits
+     * the backing array in halves, so that parallel streams over the stack divide their work evenly.
+     *
+     * @return a spliterator
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new StackSpliterator<>(array, 0, top + 1);
+    }
+    /**
+     * Spliterator implementation for ArrayStack, over a range of the backing array scanned from its end.
+     */
+    private static class StackSpliterator<E> implements Spliterator<E> {
+        private final Object[] elements;
+        private final int low;
+        private int high;
+        /**
+         * Constructs a StackSpliterator over the given range of an array.
+         *
+         * @param elements the backing array
+         * @param low      the lowest index of the range, inclusive
+         * @param high     the highest index of the range, exclusive; scanning starts just below it
+         */
+        StackSpliterator(Object[] elements, int low, int high) {
+            this.elements = elements;
+            this.low = low;
+            this.high = high;
+        }
+        /**
+         * Performs the action on the next element, if there is one.
+         *
+         * @param action the action to perform
+         * @return true if there was a next element, false otherwise
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (high <= low) {
+                return false;
+            }
+            high--;
+            action.accept(elementAt(elements, high));
+            return true;
+        }
+        /**
+         * Performs the action on every remaining element.
+         *
+         * @param action the action to perform
+         */
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            for (int i = high - 1; i >= low; i--) {
+                action.accept(elementAt(elements, i));
+            }
+            high = low;
+        }
+        /**
+         * Hands the upper half of the range, which comes first from top to bottom, to a new spliterator.
+         *
+         * @return a spliterator over the upper half, or null if the range is too small to split
+         */
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (low + high) >>> 1;
+            if (mid <= low) {
+                return null;
+            }
+            Spliterator<E> upper = new StackSpliterator<>(elements, mid, high);
+            high = mid;
+            return upper;
+        }
+        /**
+         * Returns the exact number of remaining elements.
+         *
+         * @return the number of remaining elements
+         */
+        @Override
+        public long estimateSize() {
+            return high - low;
+        }
+        /**
+         * Returns the characteristics of the spliterator.
+         *
+         * @return ORDERED, SIZED and SUBSIZED
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
     /**
      * Iterator implementation for ArrayStack.
      */
@@ -150,7 +434,7 @@ public class ArrayStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
          */
         @Override
         public E next() {
-            E element = (E) array[currentIndex];
+            E element = elementAt(array, currentIndex);
             currentIndex--;
             return element;
         }
@@ -0,0 +1,240 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that an {@link ArrayStack} keeps its elements in order while it grows and shrinks,
+ * and overflows only at its maximum capacity.
+ */
+class ArrayStackTest {
+    /**
+     * A growable stack holds up to its maximum capacity, which need not be a power of two,
+     * and keeps its elements in order while it grows, shrinks and grows again.
+     */
+    @Test
+    void growsAndShrinksUpToItsMaximumCapacity() {
+        ArrayStack<Item> stack = new ArrayStack<>(2, 100);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 100; i++) {
+                stack.push(new Item(i));
+            }
+            assertThrows(StackOverflowException.class, () -> stack.push(new Item(100)));
+            assertEquals(100, stack.size());
+            for (int i = 99; i >= 0; i--) {
+                assertEquals(i, stack.pop().value);
+            }
+            assertTrue(stack.isEmpty());
+        }
+    }
+
+    /**
+     * Pushes and pops that alternate around the points where the stack grows and shrinks keep the elements in order.
+     */
+    @Test
+    void keepsOrderAcrossResizes() {
+        ArrayStack<Item> stack = new ArrayStack<>(0, ArrayStack.UNBOUNDED);
+        int next = 0;
+        for (int step = 0; step < 2000; step++) {
+            if (step % 3 == 2) {
+                assertEquals(--next, stack.pop().value);
+            } else {
+                stack.push(new Item(next++));
+            }
+            assertEquals(next, stack.size());
+        }
+        while (next > 0) {
+            assertEquals(--next, stack.peek().value);
+            stack.pop();
+        }
+        assertThrows(EmptyStackException.class, stack::pop);
+    }
+
+    /**
+     * A stack of fixed capacity overflows once full, and invalid capacities are rejected.
+     */
+    @Test
+    void fixedCapacityStackOverflowsWhenFull() {
+        ArrayStack<Item> stack = new ArrayStack<>(3);
+        for (int i = 0; i < 3; i++) {
+            stack.push(new Item(i));
+        }
+        assertThrows(StackOverflowException.class, () -> stack.push(new Item(3)));
+        assertThrows(StackOverflowException.class, () -> new ArrayStack<Item>(0).push(new Item(0)));
+        assertThrows(NegativeCapacityException.class, () -> new ArrayStack<Item>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new ArrayStack<Item>(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> new ArrayStack<Item>(0, ArrayStack.UNBOUNDED + 1));
+    }
+
+    /**
+     * A clone copies every element through the stack's cloner, the default one calling the element's clone method,
+     * and fails with a StackException when an element has no public clone method.
+     */
+    @Test
+    void clonesElementsThroughItsCloner() {
+        ArrayStack<Item> stack = new ArrayStack<>(1, 10, item -> new Item(item.value * 10));
+        stack.push(new Item(1));
+        stack.push(new Item(2));
+        ArrayStack<Item> clone = stack.clone();
+        assertEquals(20, clone.pop().value);
+        assertEquals(10, clone.pop().value);
+        assertEquals(2, stack.size());
+
+        ArrayStack<Item> defaultStack = new ArrayStack<>(1);
+        Item item = new Item(3);
+        defaultStack.push(item);
+        Item copy = defaultStack.clone().pop();
+        assertNotSame(item, copy);
+        assertEquals(3, copy.value);
+
+        ArrayStack<Opaque> opaque = new ArrayStack<>(1);
+        opaque.push(new Opaque());
+        assertThrows(StackException.class, opaque::clone);
+    }
+
+    /**
+     * Bulk pushes keep their order and fail as a whole, popN stores the top element last,
+     * and drainTo keeps the elements a failing collection did not accept.
+     */
+    @Test
+    void bulkOperationsKeepOrder() {
+        ArrayStack<Item> stack = new ArrayStack<>(0, 5);
+        stack.pushAll(new Item[] {new Item(0), new Item(1)});
+        stack.pushAll(List.of(new Item(2), new Item(3)));
+        assertThrows(StackOverflowException.class, () -> stack.pushAll(List.of(new Item(4), new Item(5))));
+        assertEquals(4, stack.size());
+
+        Item[] popped = new Item[3];
+        assertThrows(EmptyStackException.class, () -> stack.popN(5, new Item[5]));
+        assertThrows(IllegalArgumentException.class, () -> stack.popN(4, popped));
+        stack.popN(2, popped);
+        assertEquals(2, popped[0].value);
+        assertEquals(3, popped[1].value);
+        assertEquals(2, stack.size());
+
+        stack.pushAll(List.of(new Item(2), new Item(3)));
+        LimitedList drained = new LimitedList(3);
+        assertThrows(IllegalStateException.class, () -> stack.drainTo(drained));
+        assertEquals(3, drained.size());
+        assertEquals(1, stack.size());
+        assertEquals(0, stack.peek().value);
+        assertEquals(1, stack.drainTo(new ArrayList<>()));
+        assertTrue(stack.isEmpty());
+    }
+
+    /**
+     * The spliterator splits off the upper half of the stack, so sequential and parallel streams
+     * both see the elements from top to bottom.
+     */
+    @Test
+    void spliteratorSplitsInHalvesFromTheTop() {
+        ArrayStack<Item> stack = new ArrayStack<>(0, 1000);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            stack.push(new Item(i));
+            expected.add(0, i);
+        }
+
+        Spliterator<Item> lower = stack.spliterator();
+        assertTrue(lower.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED));
+        Spliterator<Item> upper = lower.trySplit();
+        assertEquals(500, upper.estimateSize());
+        assertEquals(500, lower.estimateSize());
+        upper.tryAdvance(item -> assertEquals(999, item.value));
+        lower.tryAdvance(item -> assertEquals(499, item.value));
+        assertEquals(expected, StreamSupport.stream(stack.spliterator(), true)
+                .map(item -> item.value).collect(Collectors.toList()));
+
+        ArrayStack<Item> single = new ArrayStack<>(1);
+        single.push(new Item(0));
+        assertNull(single.spliterator().trySplit());
+    }
+
+    /**
+     * tryPush and pollOrNull report a full or empty stack by their result instead of throwing.
+     */
+    @Test
+    void tryPushAndPollOrNullDoNotThrow() {
+        ArrayStack<Item> stack = new ArrayStack<>(0, 2);
+        assertNull(stack.pollOrNull());
+        assertTrue(stack.tryPush(new Item(0)));
+        assertTrue(stack.tryPush(new Item(1)));
+        assertFalse(stack.tryPush(new Item(2)));
+        assertEquals(1, stack.pollOrNull().value);
+        assertEquals(0, stack.pollOrNull().value);
+        assertNull(stack.pollOrNull());
+    }
+
+    /**
+     * An element of the stacks under test.
+     */
+    static class Item implements Cloneable {
+        final int value;
+
+        /**
+         * Constructs an Item with the given value.
+         *
+         * @param value the value
+         */
+        Item(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Returns a copy of the item.
+         *
+         * @return the copy
+         */
+        @Override
+        public Item clone() {
+            return new Item(value);
+        }
+    }
+
+    /**
+     * An element without a public clone method.
+     */
+    static class Opaque implements Cloneable {
+    }
+
+    /**
+     * A list that refuses every element after its first few.
+     */
+    static class LimitedList extends ArrayList<Item> {
+        private final int limit;
+
+        /**
+         * Constructs a LimitedList accepting the given number of elements.
+         *
+         * @param limit the number of elements accepted
+         */
+        LimitedList(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Appends the element, unless the list is full.
+         *
+         * @param item the element to append
+         * @return true
+         * @throws IllegalStateException if the list is full
+         */
+        @Override
+        public boolean add(Item item) {
+            if (size() == limit) {
+                throw new IllegalStateException("full");
+            }
+            return super.add(item);
+        }
+    }
+}
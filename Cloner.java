@@ -0,0 +1,45 @@
+/**
+ * A strategy for cloning the elements of a stack when the stack itself is cloned.
+ *
+ * @param <E> the type of elements to clone
+ */
+@FunctionalInterface
+public interface Cloner<E> {
+    /**
+     * Returns a clone of the given element.
+     *
+     * @param element the element to clone
+     * @return the clone of the element
+     * @throws StackException if the element cannot be cloned
+     */
+    E cloneElement(E element);
+
+    /**
+     * Replaces each of the first {@code count} elements of the array by its clone.
+     * All of them must be of type {@code E}.
+     *
+     * @param elements the elements to clone in place
+     * @param count    the number of elements to clone
+     * @throws StackException if an element cannot be cloned
+     */
+    default void cloneAll(Object[] elements, int count) {
+        for (int i = 0; i < count; i++) {
+            // The caller guarantees that the elements are of type E
+            @SuppressWarnings("unchecked")
+            E element = (E) elements[i];
+            elements[i] = cloneElement(element);
+        }
+    }
+
+    /**
+     * Returns the default cloner, which calls the public {@code clone} method of each element.
+     *
+     * @param <E> the type of elements to clone
+     * @return the default cloner
+     */
+    // The cloner takes any object and returns an object of the same class, so it suits every E
+    @SuppressWarnings("unchecked")
+    static <E extends Cloneable> Cloner<E> defaultCloner() {
+        return (Cloner<E>) (Cloner<?>) MethodHandleCloner.INSTANCE;
+    }
+}
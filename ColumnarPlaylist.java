@@ -0,0 +1,511 @@
+import java.util.*;
+
+/**
+ * A playlist that stores its songs column by column in primitive arrays.
+ * Names and artists are stored as offsets into a {@link StringArena}, genres as ordinals (-1 standing for null)
+ * and durations as plain ints,
+ * so filtering and sorting never touch {@link Song} objects or decode strings.
+ * Several playlists can share one arena so that each distinct name and artist is stored only once.
+ * The playlist keeps a copy of the fields of every added song; a new {@link Song} is created
+ * each time the iterator returns one, so changing a returned song does not change the playlist.
+ * Implements the {@link OrderSongIterable} and {@link FilteredSongIterable} interfaces.
+ */
+public class ColumnarPlaylist implements OrderSongIterable, FilteredSongIterable {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Song.Genre[] GENRES = Song.Genre.values();
+    private static final byte NULL_GENRE = -1;
+
+    private final StringArena strings;
+    private final Map<Long, Integer> rowIndex;
+    private int[] nameOffsets;
+    private int[] artistOffsets;
+    private byte[] genres;
+    private int[] durations;
+    private long[] removedRows;
+    private int rowCount;
+    private int size;
+    private ScanningOrder scanningOrder;
+    private int[] nameOrder;
+    private int[] durationOrder;
+    private String filterArtist;
+    private int filterGenreMask;
+    private boolean genreFiltered;
+    private int filterMinDuration;
+    private int filterDuration;
+    private boolean durationFiltered;
+    private long[] excludedRows;
+
+    /**
+     * Constructs a new empty ColumnarPlaylist with its own string arena and the default scanning order ADDING.
+     */
+    public ColumnarPlaylist() {
+        this(new StringArena());
+    }
+
+    /**
+     * Constructs a new empty ColumnarPlaylist that stores its names and artists in the given arena.
+     *
+     * @param strings the arena to store names and artists in
+     */
+    public ColumnarPlaylist(StringArena strings) {
+        this.strings = strings;
+        this.rowIndex = new HashMap<>();
+        this.nameOffsets = new int[INITIAL_CAPACITY];
+        this.artistOffsets = new int[INITIAL_CAPACITY];
+        this.genres = new byte[INITIAL_CAPACITY];
+        this.durations = new int[INITIAL_CAPACITY];
+        this.removedRows = new long[INITIAL_CAPACITY >>> 6];
+        this.rowCount = 0;
+        this.size = 0;
+        this.scanningOrder = ScanningOrder.ADDING;
+        this.filterArtist = null;
+        this.filterGenreMask = 0;
+        this.genreFiltered = false;
+        this.filterMinDuration = Integer.MIN_VALUE;
+        this.filterDuration = -1;
+    }
+
+    /**
+     * Adds a song to the playlist.
+     *
+     * @param song the song to add
+     * @throws SongAlreadyExistsException if the song already exists in the playlist
+     */
+    public void addSong(Song song) throws SongAlreadyExistsException {
+        if (!tryAddSong(song)) {
+            throw new SongAlreadyExistsException();
+        }
+    }
+
+    /**
+     * Adds a song to the playlist unless it already exists in it, without throwing.
+     *
+     * @param song the song to add
+     * @return true if the song was added, false if it already exists in the playlist
+     */
+    public boolean tryAddSong(Song song) {
+        boolean stored = song.isStoredIn(strings);
+        int nameOffset = stored ? song.nameOffset() : strings.intern(song.getName());
+        int artistOffset = stored ? song.artistOffset() : strings.intern(song.getArtist());
+        long key = rowKey(nameOffset, artistOffset);
+        if (rowIndex.containsKey(key)) {
+            return false;
+        }
+        if (rowCount == durations.length) {
+            int capacity = rowCount * 2;
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            artistOffsets = Arrays.copyOf(artistOffsets, capacity);
+            genres = Arrays.copyOf(genres, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            removedRows = Arrays.copyOf(removedRows, capacity >>> 6);
+        }
+        nameOffsets[rowCount] = nameOffset;
+        artistOffsets[rowCount] = artistOffset;
+        genres[rowCount] = song.getGenre() == null ? NULL_GENRE : (byte) song.getGenre().ordinal();
+        durations[rowCount] = song.getDuration();
+        rowIndex.put(key, rowCount);
+        rowCount++;
+        size++;
+        invalidate();
+        return true;
+    }
+
+    /**
+     * Removes a song from the playlist.
+     *
+     * @param song the song to remove
+     * @return true if the song was removed successfully, false otherwise
+     */
+    public boolean removeSong(Song song) {
+        boolean stored = song.isStoredIn(strings);
+        int nameOffset = stored ? song.nameOffset() : strings.offsetOf(song.getName());
+        int artistOffset = stored ? song.artistOffset() : strings.offsetOf(song.getArtist());
+        if (nameOffset < 0 || artistOffset < 0) {
+            return false;
+        }
+        Integer row = rowIndex.remove(rowKey(nameOffset, artistOffset));
+        if (row == null) {
+            return false;
+        }
+        removedRows[row >>> 6] |= 1L << row;
+        size--;
+        if (size < rowCount / 2) {
+            compactRows();
+        }
+        invalidate();
+        return true;
+    }
+
+    /**
+     * Returns the number of songs in the playlist.
+     *
+     * @return the size of the playlist
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the scanning order for the playlist.
+     *
+     * @param order the scanning order
+     */
+    @Override
+    public void setScanningOrder(ScanningOrder order) {
+        this.scanningOrder = order;
+    }
+
+    /**
+     * Filters the songs in the playlist based on the artist.
+     * Replaces any previous artist filter; a null artist removes it.
+     *
+     * @param artist the artist to filter by
+     */
+    @Override
+    public void filterArtist(String artist) {
+        this.filterArtist = artist;
+        this.excludedRows = null;
+    }
+
+    /**
+     * Filters the songs in the playlist based on the genre.
+     * Replaces any previous genre filter; a null genre removes it.
+     *
+     * @param genre the genre to filter by
+     */
+    @Override
+    public void filterGenre(Enum<?> genre) {
+        if (genre == null) {
+            filterGenres(null);
+        } else if (genre instanceof Song.Genre) {
+            filterGenres(EnumSet.of((Song.Genre) genre));
+        } else {
+            filterGenres(EnumSet.noneOf(Song.Genre.class));
+        }
+    }
+
+    /**
+     * Filters the songs in the playlist to those of any of the given genres.
+     * Replaces any previous genre filter; a null set removes it.
+     *
+     * @param genres the genres to keep
+     */
+    @Override
+    public void filterGenres(EnumSet<Song.Genre> genres) {
+        this.genreFiltered = genres != null;
+        this.filterGenreMask = 0;
+        if (genres != null) {
+            for (Song.Genre genre : genres) {
+                this.filterGenreMask |= 1 << genre.ordinal();
+            }
+        }
+        this.excludedRows = null;
+    }
+
+    /**
+     * Filters the songs in the playlist based on the duration.
+     * Replaces any previous duration filter.
+     *
+     * @param duration the duration to filter by
+     */
+    @Override
+    public void filterDuration(int duration) {
+        filterDuration(Integer.MIN_VALUE, duration);
+    }
+
+    /**
+     * Filters the songs in the playlist to those whose duration is within the given range.
+     * Replaces any previous duration filter. The range is found by binary search in the duration order.
+     *
+     * @param minDuration the minimum duration to filter by, inclusive
+     * @param maxDuration the maximum duration to filter by, inclusive
+     */
+    @Override
+    public void filterDuration(int minDuration, int maxDuration) {
+        this.filterMinDuration = minDuration;
+        this.filterDuration = maxDuration;
+        this.durationFiltered = true;
+        this.excludedRows = null;
+    }
+
+    /**
+     * Returns an iterator over the songs in the playlist that pass the filters, in the current scanning order.
+     *
+     * @return an iterator over the songs in the playlist
+     */
+    @Override
+    public Iterator<Song> iterator() {
+        long[] excluded = exclusions();
+        switch (scanningOrder) {
+            case NAME:
+                if (nameOrder == null) {
+                    nameOrder = sortedRows(ScanningOrder.NAME);
+                }
+                return new ColumnarIterator(nameOrder, excluded);
+            case DURATION:
+                return new ColumnarIterator(durationOrder(), excluded);
+            default:
+                return new ColumnarIterator(null, excluded);
+        }
+    }
+
+    /**
+     * Returns the live rows sorted by duration, sorting them if the rows have changed.
+     *
+     * @return the rows in duration order
+     */
+    private int[] durationOrder() {
+        if (durationOrder == null) {
+            durationOrder = sortedRows(ScanningOrder.DURATION);
+        }
+        return durationOrder;
+    }
+
+    /**
+     * Drops the cached order indexes and exclusions after the rows have changed.
+     */
+    private void invalidate() {
+        nameOrder = null;
+        durationOrder = null;
+        excludedRows = null;
+    }
+
+    /**
+     * Combines the name and artist offsets of a song into the key used by the row index.
+     * Since the arena stores every string once, equal songs always have the same key.
+     *
+     * @param nameOffset   the name offset
+     * @param artistOffset the artist offset
+     * @return the row key
+     */
+    private static long rowKey(int nameOffset, int artistOffset) {
+        return ((long) nameOffset << 32) | (artistOffset & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Moves the remaining rows to the front of the columns, keeping their adding order.
+     */
+    private void compactRows() {
+        int next = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if ((removedRows[row >>> 6] & (1L << row)) == 0) {
+                nameOffsets[next] = nameOffsets[row];
+                artistOffsets[next] = artistOffsets[row];
+                genres[next] = genres[row];
+                durations[next] = durations[row];
+                rowIndex.put(rowKey(nameOffsets[next], artistOffsets[next]), next);
+                next++;
+            }
+        }
+        Arrays.fill(removedRows, 0L);
+        rowCount = next;
+    }
+
+    /**
+     * Returns the excluded rows, recomputing them if the filters or the rows have changed.
+     * Without a duration filter every row is checked in a single pass over the columns; with one,
+     * only the rows in the duration range are checked, found by binary search in the duration order.
+     * Removed rows are always excluded.
+     *
+     * @return a bitmask of the excluded rows
+     */
+    private long[] exclusions() {
+        if (excludedRows != null) {
+            return excludedRows;
+        }
+        int artistOffset = filterArtist != null ? strings.offsetOf(filterArtist) : -1;
+        long[] excluded;
+        if (durationFiltered) {
+            excluded = new long[removedRows.length];
+            Arrays.fill(excluded, -1L);
+            int[] order = durationOrder();
+            int end = firstLongerThan(order, filterDuration);
+            for (int i = firstLongerThan(order, (long) filterMinDuration - 1); i < end; i++) {
+                int row = order[i];
+                if (!isRejected(row, artistOffset)) {
+                    excluded[row >>> 6] &= ~(1L << row);
+                }
+            }
+        } else {
+            excluded = removedRows.clone();
+            for (int row = 0; row < rowCount; row++) {
+                if (isRejected(row, artistOffset)) {
+                    excluded[row >>> 6] |= 1L << row;
+                }
+            }
+        }
+        excludedRows = excluded;
+        return excluded;
+    }
+
+    /**
+     * Checks whether the given row is rejected by the artist or genre filter.
+     * A song without a genre is rejected by every genre filter.
+     *
+     * @param row          the row to check
+     * @param artistOffset the arena offset of the filtered artist, or -1 if it is not in the arena
+     * @return true if the row is filtered out, false otherwise
+     */
+    private boolean isRejected(int row, int artistOffset) {
+        return (filterArtist != null && artistOffsets[row] != artistOffset)
+                || (genreFiltered && (genres[row] == NULL_GENRE || (filterGenreMask & (1 << genres[row])) == 0));
+    }
+
+    /**
+     * Finds the first position in the duration order whose duration is greater than the given one.
+     *
+     * @param order    the rows in duration order
+     * @param duration the duration to search for
+     * @return the position of the first longer row, or the length of the order if there is none
+     */
+    private int firstLongerThan(int[] order, long duration) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (durations[order[middle]] <= duration) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the live rows sorted by the given order.
+     *
+     * @param order the order to sort by, either NAME or DURATION
+     * @return the sorted rows
+     */
+    private int[] sortedRows(ScanningOrder order) {
+        int[] rows = new int[size];
+        int next = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if ((removedRows[row >>> 6] & (1L << row)) == 0) {
+                rows[next++] = row;
+            }
+        }
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size - width; low += 2 * width) {
+                mergeRows(rows, buffer, low, low + width, Math.min(low + 2 * width, size), order);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Merges the two adjacent sorted runs rows[low, middle) and rows[middle, high).
+     *
+     * @param rows   the rows being sorted
+     * @param buffer a scratch array at least as long as rows
+     * @param low    the start of the first run
+     * @param middle the start of the second run
+     * @param high   the end of the second run
+     * @param order  the order to sort by
+     */
+    private void mergeRows(int[] rows, int[] buffer, int low, int middle, int high, ScanningOrder order) {
+        System.arraycopy(rows, low, buffer, low, high - low);
+        int left = low;
+        int right = middle;
+        for (int i = low; i < high; i++) {
+            if (right >= high || (left < middle && compareRows(buffer[left], buffer[right], order) <= 0)) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Compares two rows by the given order. Duration ties are broken by name and artist.
+     *
+     * @param first  the first row
+     * @param second the second row
+     * @param order  the order to compare by
+     * @return a negative number, zero or a positive number as the first row sorts before, with or after the second
+     */
+    private int compareRows(int first, int second, ScanningOrder order) {
+        if (order == ScanningOrder.DURATION) {
+            int result = Integer.compare(durations[first], durations[second]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        int result = strings.compare(nameOffsets[first], nameOffsets[second]);
+        if (result != 0) {
+            return result;
+        }
+        return strings.compare(artistOffsets[first], artistOffsets[second]);
+    }
+
+    /**
+     * Creates a song from the values stored in the given row.
+     * The song refers to its name and artist in the arena, so none of them is decoded.
+     *
+     * @param row the row to read
+     * @return a new song with the values of the row
+     */
+    private Song materialize(int row) {
+        Song.Genre genre = genres[row] == NULL_GENRE ? null : GENRES[genres[row]];
+        return new Song(strings, nameOffsets[row], artistOffsets[row], genre, durations[row]);
+    }
+
+    /**
+     * Iterator over the rows of the playlist that are not excluded.
+     * The order and exclusions are captured when the iterator is created.
+     */
+    private class ColumnarIterator implements Iterator<Song> {
+        private final int[] order;
+        private final long[] excluded;
+        private final int end;
+        private int currentIndex = 0;
+        private int nextRow = -1;
+
+        /**
+         * Constructs a ColumnarIterator.
+         *
+         * @param order    the rows in scanning order, or null to scan in adding order
+         * @param excluded the bitmask of excluded rows
+         */
+        ColumnarIterator(int[] order, long[] excluded) {
+            this.order = order;
+            this.excluded = excluded;
+            this.end = order == null ? rowCount : order.length;
+        }
+
+        /**
+         * Checks if there are more songs to iterate.
+         *
+         * @return true if there are more songs, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            while (nextRow < 0 && currentIndex < end) {
+                int row = order == null ? currentIndex : order[currentIndex];
+                currentIndex++;
+                if ((excluded[row >>> 6] & (1L << row)) == 0) {
+                    nextRow = row;
+                }
+            }
+            return nextRow >= 0;
+        }
+
+        /**
+         * Returns the next song in the iteration.
+         *
+         * @return the next song
+         * @throws NoSuchElementException if there are no more songs to iterate over
+         */
+        @Override
+        public Song next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Song song = materialize(nextRow);
+            nextRow = -1;
+            return song;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@link ColumnarPlaylist} scans and filters its songs as a {@link Playlist} does.
+ */
+class ColumnarPlaylistTest {
+    /**
+     * Every scanning order lists the songs as a Playlist holding the same songs does.
+     */
+    @Test
+    void scansInTheSameOrdersAsPlaylist() {
+        ColumnarPlaylist columnar = new ColumnarPlaylist();
+        Playlist playlist = new Playlist();
+        for (Song song : songs()) {
+            columnar.addSong(song);
+            playlist.addSong(song);
+        }
+
+        for (ScanningOrder order : ScanningOrder.values()) {
+            columnar.setScanningOrder(order);
+            playlist.setScanningOrder(order);
+            assertEquals(render(playlist), render(columnar), order.name());
+        }
+    }
+
+    /**
+     * The artist, genre and duration filters keep the same songs as in a Playlist, and removed songs are gone.
+     */
+    @Test
+    void filtersKeepTheSameSongsAsPlaylist() {
+        ColumnarPlaylist columnar = new ColumnarPlaylist();
+        Playlist playlist = new Playlist();
+        for (Song song : songs()) {
+            columnar.addSong(song);
+            playlist.addSong(song);
+        }
+        Song easterEgg = new Song("Easter Egg", "Dvir ft. Gal", Song.Genre.HIP_HOP, 230);
+        assertTrue(columnar.removeSong(easterEgg));
+        assertTrue(playlist.removeSong(easterEgg));
+        assertFalse(columnar.removeSong(easterEgg));
+
+        columnar.filterDuration(250);
+        playlist.filterDuration(250);
+        assertEquals(render(playlist), render(columnar));
+        columnar.filterGenre(Song.Genre.DISCO);
+        playlist.filterGenre(Song.Genre.DISCO);
+        assertEquals(render(playlist), render(columnar));
+        columnar.filterArtist("Chic");
+        playlist.filterArtist("Chic");
+        assertEquals(render(playlist), render(columnar));
+        assertEquals(List.of("Dance, Dance, Dance"), names(columnar));
+    }
+
+    /**
+     * A song without a genre is handed back without one, and is filtered out by any genre filter.
+     */
+    @Test
+    void keepsSongsWithoutGenre() {
+        ColumnarPlaylist columnar = new ColumnarPlaylist();
+        columnar.addSong(new Song("Untitled", "Unknown", null, 100));
+        columnar.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+
+        assertNull(columnar.iterator().next().getGenre());
+        columnar.filterGenre(Song.Genre.POP);
+        assertEquals(List.of("Unicorn"), names(columnar));
+        columnar.filterGenre(null);
+        assertEquals(List.of("Untitled", "Unicorn"), names(columnar));
+    }
+
+    /**
+     * Adding an equal song again fails, and changing a song handed out by the iterator does not change the playlist.
+     */
+    @Test
+    void keepsItsOwnCopyOfEverySong() {
+        ColumnarPlaylist columnar = new ColumnarPlaylist();
+        Song unicorn = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        columnar.addSong(unicorn);
+
+        assertThrows(SongAlreadyExistsException.class,
+                () -> columnar.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.ROCK, 60)));
+        unicorn.setDuration(60);
+        columnar.iterator().next().setGenre(Song.Genre.ROCK);
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51)]", render(columnar));
+        assertEquals(1, columnar.size());
+    }
+
+    /**
+     * Returns the songs used by the tests.
+     *
+     * @return the songs, in adding order
+     */
+    private static List<Song> songs() {
+        return List.of(
+                new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171),
+                new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175),
+                new Song("Le Freak", "Chic", Song.Genre.DISCO, 307),
+                new Song("Easter Egg", "Dvir ft. Gal", Song.Genre.HIP_HOP, 230),
+                new Song("Dance, Dance, Dance", "Chic", Song.Genre.DISCO, 201),
+                new Song("Bohemian Rhapsody", "Queen", Song.Genre.ROCK, 354));
+    }
+
+    /**
+     * Renders the songs a playlist hands out, in its scanning order.
+     *
+     * @param songs the playlist
+     * @return the rendered songs
+     */
+    private static String render(Iterable<Song> songs) {
+        List<String> rendered = new ArrayList<>();
+        for (Song song : songs) {
+            rendered.add("(" + song + ")");
+        }
+        return rendered.toString();
+    }
+
+    /**
+     * Returns the names of the songs a playlist hands out, in its scanning order.
+     *
+     * @param songs the playlist
+     * @return the names of the songs
+     */
+    private static List<String> names(Iterable<Song> songs) {
+        List<String> names = new ArrayList<>();
+        for (Song song : songs) {
+            names.add(song.getName());
+        }
+        return names;
+    }
+}
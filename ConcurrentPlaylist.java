@@ -0,0 +1,302 @@
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A playlist that can be shared between threads and is mostly read.
+ * Every change is made to an inner {@link Playlist} under a lock, after which the songs it shows,
+ * in its scanning order and without the filtered-out songs, are published as a new immutable array.
+ * Readers iterate the array published last without taking any lock, so they never wait for writers
+ * and always see a consistent playlist, even while it is being changed.
+ * A song added in adding order is appended to the array published last, past the end any reader can see,
+ * so loading the playlist one song at a time takes linear time; other changes publish a new array,
+ * and {@link #addAll(Iterable)} publishes once for a whole batch.
+ * A song held by the playlist may change its duration or genre on any thread: the inner playlist takes
+ * the lock of this playlist to update its indexes before and after the change, and a fresh array is published
+ * once the change is done. Songs are added under their own lock, which their changes hold throughout,
+ * so a song is never indexed halfway through a change.
+ */
+public class ConcurrentPlaylist implements OrderSongIterable, FilteredSongIterable {
+    private static final int CHARACTERISTICS =
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Playlist playlist;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a new empty ConcurrentPlaylist, in adding order and without filters.
+     */
+    public ConcurrentPlaylist() {
+        this.playlist = new Playlist();
+        this.playlist.setSongListener(this::songChanged);
+        this.playlist.setSongLock(this);
+        this.snapshot = new Snapshot(new Song[0], 0);
+    }
+
+    /**
+     * Adds a song to the playlist.
+     *
+     * @param song the song to add
+     * @throws SongAlreadyExistsException if the song already exists in the playlist
+     */
+    public void addSong(Song song) throws SongAlreadyExistsException {
+        if (!tryAddSong(song)) {
+            throw new SongAlreadyExistsException();
+        }
+    }
+
+    /**
+     * Adds a song to the playlist unless it already exists in it, without throwing.
+     * The lock of the song is taken first, so that the song is not changing while it is indexed.
+     *
+     * @param song the song to add
+     * @return true if the song was added, false if it already exists in the playlist
+     */
+    public boolean tryAddSong(Song song) {
+        synchronized (song) {
+            synchronized (this) {
+                if (!playlist.tryAddSong(song)) {
+                    return false;
+                }
+                songAdded(song);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds the given songs to the playlist, skipping those that already exist in it,
+     * and publishes the result once. Each song is added under its own lock, as in {@link #tryAddSong(Song)}.
+     *
+     * @param songs the songs to add
+     * @return the number of songs added
+     */
+    public int addAll(Iterable<Song> songs) {
+        int added = 0;
+        for (Song song : songs) {
+            synchronized (song) {
+                synchronized (this) {
+                    if (playlist.tryAddSong(song)) {
+                        added++;
+                    }
+                }
+            }
+        }
+        if (added > 0) {
+            synchronized (this) {
+                publish();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Removes a song from the playlist.
+     *
+     * @param song the song to remove
+     * @return true if the song was removed successfully, false otherwise
+     */
+    public synchronized boolean removeSong(Song song) {
+        if (!playlist.removeSong(song)) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    /**
+     * Returns the number of songs shown by the playlist, that is, the songs kept by the filters.
+     *
+     * @return the number of songs
+     */
+    public int size() {
+        return snapshot.length;
+    }
+
+    /**
+     * Sets the scanning order for the playlist.
+     *
+     * @param order the scanning order
+     */
+    @Override
+    public synchronized void setScanningOrder(ScanningOrder order) {
+        playlist.setScanningOrder(order);
+        publish();
+    }
+
+    /**
+     * Filters the songs in the playlist based on the artist.
+     * Replaces any previous artist filter; a null artist removes it.
+     *
+     * @param artist the artist to filter by
+     */
+    @Override
+    public synchronized void filterArtist(String artist) {
+        playlist.filterArtist(artist);
+        publish();
+    }
+
+    /**
+     * Filters the songs in the playlist based on the genre.
+     * Replaces any previous genre filter; a null genre removes it.
+     *
+     * @param genre the genre to filter by
+     */
+    @Override
+    public synchronized void filterGenre(Enum<?> genre) {
+        playlist.filterGenre(genre);
+        publish();
+    }
+
+    /**
+     * Filters the songs in the playlist to those of any of the given genres.
+     * Replaces any previous genre filter; a null set removes it.
+     *
+     * @param genres the genres to keep
+     */
+    @Override
+    public synchronized void filterGenres(EnumSet<Song.Genre> genres) {
+        playlist.filterGenres(genres);
+        publish();
+    }
+
+    /**
+     * Filters the songs in the playlist based on the duration.
+     * Replaces any previous duration filter.
+     *
+     * @param duration the duration to filter by
+     */
+    @Override
+    public synchronized void filterDuration(int duration) {
+        playlist.filterDuration(duration);
+        publish();
+    }
+
+    /**
+     * Filters the songs in the playlist to those whose duration is within the given range.
+     * Replaces any previous duration filter.
+     *
+     * @param minDuration the minimum duration to filter by, inclusive
+     * @param maxDuration the maximum duration to filter by, inclusive
+     */
+    @Override
+    public synchronized void filterDuration(int minDuration, int maxDuration) {
+        playlist.filterDuration(minDuration, maxDuration);
+        publish();
+    }
+
+    /**
+     * Returns an iterator over the songs in the playlist as they were when it was created.
+     * Later changes to the playlist do not affect the iterator.
+     *
+     * @return an iterator over the songs in the playlist
+     */
+    @Override
+    public Iterator<Song> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Returns a spliterator over the songs in the playlist as they were when it was created.
+     *
+     * @return a spliterator over the songs in the playlist
+     */
+    @Override
+    public Spliterator<Song> spliterator() {
+        Snapshot current = snapshot;
+        return Spliterators.spliterator(current.songs, 0, current.length, CHARACTERISTICS);
+    }
+
+    /**
+     * Returns a copy of the inner playlist, with copies of its songs and its scanning order but without filters.
+     * The copy shares nothing with this playlist, so it can be used by one thread without any lock.
+     *
+     * @return a copy of the playlist
+     */
+    public synchronized Playlist toPlaylist() {
+        Playlist copy = new Playlist();
+        for (Song song : playlist.songs(ScanningOrder.ADDING)) {
+            copy.addSong(song.clone());
+        }
+        copy.setScanningOrder(playlist.getScanningOrder());
+        return copy;
+    }
+
+    /**
+     * Returns a string representation of the playlist, as {@link Playlist#toString()} does.
+     *
+     * @return a string representation of the playlist
+     */
+    @Override
+    public synchronized String toString() {
+        return playlist.toString();
+    }
+
+    /**
+     * Publishes the songs after a song has been added to the inner playlist.
+     * A song kept by the filters in adding order goes last, so it is appended to the published array;
+     * a song rejected by the filters leaves the published songs unchanged.
+     * Must be called while holding the lock.
+     *
+     * @param song the added song
+     */
+    private void songAdded(Song song) {
+        if (!playlist.shows(song)) {
+            return;
+        }
+        if (playlist.getScanningOrder() != ScanningOrder.ADDING) {
+            publish();
+            return;
+        }
+        Snapshot current = snapshot;
+        Song[] songs = current.songs;
+        if (current.length == songs.length) {
+            songs = Arrays.copyOf(songs, Math.max(INITIAL_CAPACITY, songs.length * 2));
+        }
+        songs[current.length] = song;
+        snapshot = new Snapshot(songs, current.length + 1);
+    }
+
+    /**
+     * Publishes the songs again after a song of the inner playlist has changed its duration or genre.
+     * Without filters, the songs shown in adding order stay the same, so nothing needs to be published.
+     * Runs while holding the lock, which the inner playlist takes around song changes.
+     */
+    private void songChanged() {
+        if (playlist.getScanningOrder() != ScanningOrder.ADDING || playlist.isFiltered()) {
+            publish();
+        }
+    }
+
+    /**
+     * Collects the songs shown by the inner playlist and publishes them as the new snapshot.
+     * Must be called while holding the lock.
+     */
+    private void publish() {
+        Song[] songs = playlist.shownSongs();
+        snapshot = new Snapshot(songs, songs.length);
+    }
+
+    /**
+     * The songs shown by the playlist at one point in time: the first {@code length} songs of an array
+     * whose later elements may still be filled in by writers for the snapshots published after it.
+     */
+    private static final class Snapshot {
+        private final Song[] songs;
+        private final int length;
+
+        /**
+         * Constructs a Snapshot of the given songs.
+         *
+         * @param songs  the songs, in scanning order, of which the first {@code length} must not be changed afterwards
+         * @param length the number of songs in the snapshot
+         */
+        Snapshot(Song[] songs, int length) {
+            this.songs = songs;
+            this.length = length;
+        }
+    }
+}
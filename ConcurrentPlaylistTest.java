@@ -0,0 +1,217 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that readers of a {@link ConcurrentPlaylist} see consistent snapshots while it is being changed.
+ */
+class ConcurrentPlaylistTest {
+    private static final int READERS = 4;
+    private static final int SONGS = 20_000;
+
+    /**
+     * Readers iterating while a writer adds songs one by one and in batches never see a song twice,
+     * a missing song, or a playlist smaller than one they saw before.
+     *
+     * @throws Exception if a reader fails
+     */
+    @Test
+    void readersSeeConsistentSnapshotsWhileWriting() throws Exception {
+        ConcurrentPlaylist playlist = new ConcurrentPlaylist();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(READERS);
+        try {
+            List<Future<Integer>> scans = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                scans.add(readers.submit(() -> {
+                    int count = 0;
+                    int lastSize = 0;
+                    do {
+                        Set<Song> seen = new HashSet<>();
+                        for (Song song : playlist) {
+                            assertTrue(seen.add(song), "song seen twice: " + song);
+                        }
+                        assertTrue(seen.size() >= lastSize, "playlist shrank");
+                        lastSize = seen.size();
+                        count++;
+                    } while (writing.get());
+                    return count;
+                }));
+            }
+
+            for (int i = 0; i < SONGS; i++) {
+                playlist.addSong(new Song("Song " + i, "Artist", Song.Genre.POP, i % 600));
+            }
+            List<Song> batch = new ArrayList<>();
+            for (int i = 0; i < SONGS; i++) {
+                batch.add(new Song("Batch " + i, "Artist", Song.Genre.ROCK, i % 600));
+            }
+            assertEquals(SONGS, playlist.addAll(batch));
+            assertEquals(0, playlist.addAll(batch));
+            writing.set(false);
+
+            for (Future<Integer> scan : scans) {
+                assertTrue(scan.get() > 0);
+            }
+            assertEquals(2 * SONGS, playlist.size());
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    /**
+     * Changing a song publishes a new snapshot, so the next reader sees the song in its new place.
+     */
+    @Test
+    void songChangesArePublished() {
+        ConcurrentPlaylist playlist = new ConcurrentPlaylist();
+        Song unicorn = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        playlist.addSong(unicorn);
+        playlist.setScanningOrder(ScanningOrder.DURATION);
+        playlist.filterGenre(Song.Genre.POP);
+        assertEquals(1, playlist.size());
+
+        unicorn.setGenre(Song.Genre.JAZZ);
+        assertEquals(0, playlist.size());
+
+        playlist.filterGenre(null);
+        unicorn.setDuration(60);
+        assertSame(unicorn, playlist.iterator().next());
+    }
+
+    /**
+     * Songs shared by two playlists change on several threads while another thread adds and removes songs
+     * and readers iterate: no song is lost or seen twice, and both playlists end up in the order and
+     * with the genres of the final state of their songs.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    void songsChangeWhileOtherThreadsWrite() throws Exception {
+        ConcurrentPlaylist first = new ConcurrentPlaylist();
+        ConcurrentPlaylist second = new ConcurrentPlaylist();
+        first.setScanningOrder(ScanningOrder.DURATION);
+        second.filterGenre(Song.Genre.POP);
+        List<Song> shared = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Song song = new Song("Shared " + i, "Artist", Song.Genre.POP, i);
+            shared.add(song);
+            first.addSong(song);
+            second.addSong(song);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(READERS + 2);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                tasks.add(threads.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        Song song = shared.get(random.nextInt(shared.size()));
+                        if (random.nextBoolean()) {
+                            song.setDuration(random.nextInt(600));
+                        } else {
+                            song.setGenre(random.nextBoolean() ? Song.Genre.POP : Song.Genre.ROCK);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            tasks.add(threads.submit(() -> {
+                start.await();
+                for (int i = 0; i < 5_000; i++) {
+                    Song song = new Song("Extra " + (i % 50), "Artist", Song.Genre.POP, i % 600);
+                    ConcurrentPlaylist target = i % 2 == 0 ? first : second;
+                    if (!target.tryAddSong(song)) {
+                        assertTrue(target.removeSong(song));
+                    }
+                }
+                return null;
+            }));
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(threads.submit(() -> {
+                    start.await();
+                    do {
+                        for (ConcurrentPlaylist playlist : List.of(first, second)) {
+                            Set<Song> seen = new HashSet<>();
+                            for (Song song : playlist) {
+                                assertTrue(seen.add(song), "song seen twice: " + song);
+                            }
+                        }
+                    } while (running.get());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            running.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        int lastDuration = -1;
+        Set<Song> inOrder = new HashSet<>();
+        for (Song song : first) {
+            assertTrue(song.getDuration() >= lastDuration, "out of order: " + song);
+            lastDuration = song.getDuration();
+            inOrder.add(song);
+        }
+        assertTrue(inOrder.containsAll(shared));
+        long pop = shared.stream().filter(song -> song.getGenre() == Song.Genre.POP).count();
+        int popExtras = 0;
+        for (Song song : second) {
+            assertSame(Song.Genre.POP, song.getGenre());
+            if (!shared.contains(song)) {
+                popExtras++;
+            }
+        }
+        assertEquals(pop + popExtras, second.size());
+    }
+
+    /**
+     * The copy returned by toPlaylist holds copies of the songs in the same scanning order,
+     * and neither it nor the playlist follows changes made to the songs of the other.
+     */
+    @Test
+    void toPlaylistCopiesTheSongs() {
+        ConcurrentPlaylist playlist = new ConcurrentPlaylist();
+        Song unicorn = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        playlist.addSong(unicorn);
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        playlist.setScanningOrder(ScanningOrder.DURATION);
+
+        Playlist copy = playlist.toPlaylist();
+        unicorn.setDuration(400);
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 2:55)]", copy.toString());
+        assertEquals("[(Take Five, Dave Brubeck, JAZZ, 2:55), (Unicorn, Noa Kirel, POP, 6:40)]", playlist.toString());
+        Song copied = copy.iterator().next();
+        assertNotSame(unicorn, copied);
+        copied.setGenre(Song.Genre.ROCK);
+        assertFalse(playlist.toString().contains("ROCK"));
+    }
+}
@@ -0,0 +1,457 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents a lock-free stack that can be shared between threads (a Treiber stack).
+ * Every node records the size of the stack it tops, so {@link #size()} is exact and constant time.
+ * Iterators and clones work on the stack as it was when they were created.
+ * Optionally, a push and a pop that collide on the top of the stack can hand the element over
+ * through an elimination array instead of retrying, which keeps the stack scalable under contention.
+ *
+ * @param <E> the type of elements stored in the stack, must implement Cloneable
+ */
+public class ConcurrentStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
+    private static final int ELIMINATION_SPINS = 64;
+
+    private final AtomicReference<Node<E>> head;
+    private final AtomicReferenceArray<Node<E>> elimination;
+    private final Cloner<E> cloner;
+
+    /**
+     * Constructs an empty ConcurrentStack without an elimination array.
+     */
+    public ConcurrentStack() {
+        this(0);
+    }
+
+    /**
+     * Constructs an empty ConcurrentStack with the given number of elimination slots.
+     *
+     * @param eliminationSlots the size of the elimination array, or 0 to disable elimination
+     * @throws NegativeCapacityException if the number of slots is negative
+     */
+    public ConcurrentStack(int eliminationSlots) {
+        this(eliminationSlots, Cloner.defaultCloner());
+    }
+
+    /**
+     * Constructs an empty ConcurrentStack with the given number of elimination slots
+     * that clones its elements with the given cloner.
+     *
+     * @param eliminationSlots the size of the elimination array, or 0 to disable elimination
+     * @param cloner           the cloner used by {@link #clone()} to clone the elements
+     * @throws NegativeCapacityException if the number of slots is negative
+     */
+    public ConcurrentStack(int eliminationSlots, Cloner<E> cloner) {
+        if (eliminationSlots < 0) {
+            throw new NegativeCapacityException();
+        }
+        this.head = new AtomicReference<>();
+        this.elimination = eliminationSlots == 0 ? null : new AtomicReferenceArray<>(eliminationSlots);
+        this.cloner = cloner;
+    }
+
+    /**
+     * Adds an element to the top of the stack.
+     *
+     * @param element the element to be pushed onto the stack
+     */
+    @Override
+    public void push(E element) {
+        Node<E> node = new Node<>(element);
+        while (true) {
+            Node<E> current = head.get();
+            node.next = current;
+            node.size = current == null ? 1 : current.size + 1;
+            if (head.compareAndSet(current, node) || (elimination != null && offer(node))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the element at the top of the stack.
+     *
+     * @return the element at the top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    @Override
+    public E pop() {
+        Node<E> popped = popNode();
+        if (popped == null) {
+            throw new EmptyStackException();
+        }
+        return popped.element;
+    }
+
+    /**
+     * Removes and returns the element at the top of the stack, or returns null if the stack is empty.
+     * Unlike checking {@link #isEmpty()} before popping, this cannot fail when another thread empties the stack.
+     *
+     * @return the element at the top of the stack, or null if the stack is empty
+     */
+    @Override
+    public E pollOrNull() {
+        Node<E> popped = popNode();
+        return popped == null ? null : popped.element;
+    }
+
+    /**
+     * Returns the element at the top of the stack without removing it.
+     *
+     * @return the element at the top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    @Override
+    public E peek() {
+        Node<E> current = head.get();
+        if (current == null) {
+            throw new EmptyStackException();
+        }
+        return current.element;
+    }
+
+    /**
+     * Pushes all elements of the array in order, publishing them all with a single compare-and-set,
+     * so that no other thread ever sees only some of them.
+     *
+     * @param elements the elements to be pushed onto the stack
+     */
+    @Override
+    public void pushAll(E[] elements) {
+        pushAll(Arrays.asList(elements));
+    }
+
+    /**
+     * Pushes all elements of the collection in iteration order, publishing them all with a single
+     * compare-and-set, so that no other thread ever sees only some of them.
+     *
+     * @param elements the elements to be pushed onto the stack
+     */
+    @Override
+    public void pushAll(Collection<? extends E> elements) {
+        Node<E> bottom = null;
+        Node<E> top = null;
+        int length = 0;
+        for (E element : elements) {
+            length++;
+            Node<E> node = new Node<>(element);
+            node.next = top;
+            top = node;
+            if (bottom == null) {
+                bottom = node;
+            }
+        }
+        if (top != null) {
+            pushChain(top, bottom, length);
+        }
+    }
+
+    /**
+     * Pops the given number of elements into the start of the array with a single compare-and-set,
+     * the former top element being stored last.
+     *
+     * @param count       the number of elements to pop
+     * @param destination the array receiving the popped elements
+     * @throws EmptyStackException      if the stack holds fewer than count elements, in which case none is popped
+     * @throws IllegalArgumentException if count is negative or larger than the array
+     */
+    @Override
+    public void popN(int count, E[] destination) {
+        if (count < 0 || count > destination.length) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        while (true) {
+            Node<E> current = head.get();
+            if (count > (current == null ? 0 : current.size)) {
+                throw new EmptyStackException();
+            }
+            Node<E> rest = current;
+            for (int i = 0; i < count; i++) {
+                rest = rest.next;
+            }
+            if (head.compareAndSet(current, rest)) {
+                Node<E> node = current;
+                for (int i = count - 1; i >= 0; i--) {
+                    destination[i] = node.element;
+                    node = node.next;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pops every element of the stack into the collection, from top to bottom,
+     * detaching them all at once so that concurrent pushes are not drained.
+     * If adding an element fails, that element and the ones below it are pushed back in their order,
+     * on top of any element pushed in the meantime, before the exception is rethrown.
+     *
+     * @param destination the collection receiving the popped elements
+     * @return the number of elements popped
+     */
+    @Override
+    public int drainTo(Collection<? super E> destination) {
+        Node<E> drained = head.getAndSet(null);
+        if (drained == null) {
+            return 0;
+        }
+        Node<E> node = drained;
+        try {
+            while (node != null) {
+                destination.add(node.element);
+                node = node.next;
+            }
+        } finally {
+            if (node != null) {
+                pushBack(node);
+            }
+        }
+        return drained.size;
+    }
+
+    /**
+     * Returns the number of elements in the stack.
+     *
+     * @return the size of the stack
+     */
+    @Override
+    public int size() {
+        Node<E> current = head.get();
+        return current == null ? 0 : current.size;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return true if the stack is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return head.get() == null;
+    }
+
+    /**
+     * Creates a copy of the stack as it is at the time of the call,
+     * whose elements are cloned by the stack's {@link Cloner}.
+     *
+     * @return a cloned instance of the stack
+     * @throws StackException if an element cannot be cloned
+     */
+    @Override
+    public ConcurrentStack<E> clone() {
+        Node<E> snapshot = head.get();
+        ConcurrentStack<E> clonedStack =
+                new ConcurrentStack<>(elimination == null ? 0 : elimination.length(), cloner);
+        if (snapshot == null) {
+            return clonedStack;
+        }
+        Object[] elements = new Object[snapshot.size];
+        int index = elements.length;
+        for (Node<E> node = snapshot; node != null; node = node.next) {
+            elements[--index] = node.element;
+        }
+        cloner.cloneAll(elements, elements.length);
+        Node<E> top = null;
+        for (Object element : elements) {
+            // The array was filled from the nodes above, and a clone has the class of its element
+            @SuppressWarnings("unchecked")
+            Node<E> node = new Node<>((E) element);
+            node.next = top;
+            node.size = top == null ? 1 : top.size + 1;
+            top = node;
+        }
+        clonedStack.head.set(top);
+        return clonedStack;
+    }
+
+    /**
+     * Returns an iterator over the elements of the stack from top to bottom,
+     * as they were when the iterator was created.
+     *
+     * @return an iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new StackIterator<>(head.get());
+    }
+
+    /**
+     * Removes the top node of the stack, or takes one offered by a concurrent push through the elimination array.
+     *
+     * @return the removed node, or null if the stack is empty
+     */
+    private Node<E> popNode() {
+        while (true) {
+            Node<E> current = head.get();
+            if (current == null) {
+                return null;
+            }
+            if (head.compareAndSet(current, current.next)) {
+                return current;
+            }
+            if (elimination != null) {
+                Node<E> taken = take();
+                if (taken != null) {
+                    return taken;
+                }
+            }
+        }
+    }
+
+    /**
+     * Offers the node of a push whose compare-and-set failed to a concurrent pop through a random slot
+     * of the elimination array, and waits briefly for it to be taken.
+     *
+     * @param node the node being pushed
+     * @return true if a pop took the node, false if the push should retry on the stack
+     */
+    private boolean offer(Node<E> node) {
+        int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+        if (!elimination.compareAndSet(slot, null, node)) {
+            return false;
+        }
+        for (int i = 0; i < ELIMINATION_SPINS; i++) {
+            if (elimination.get(slot) != node) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        return !elimination.compareAndSet(slot, node, null);
+    }
+
+    /**
+     * Takes a node offered by a concurrent push from a random slot of the elimination array.
+     *
+     * @return the taken node, or null if the slot was empty or another pop was faster
+     */
+    private Node<E> take() {
+        int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+        Node<E> offered = elimination.get(slot);
+        if (offered != null && elimination.compareAndSet(slot, offered, null)) {
+            return offered;
+        }
+        return null;
+    }
+
+    /**
+     * Pushes copies of a detached chain of nodes back onto the stack, keeping their order.
+     * The nodes themselves were published once, so they are never linked again.
+     *
+     * @param detached the top node of the detached chain
+     */
+    private void pushBack(Node<E> detached) {
+        Node<E> top = new Node<>(detached.element);
+        Node<E> bottom = top;
+        for (Node<E> node = detached.next; node != null; node = node.next) {
+            Node<E> copy = new Node<>(node.element);
+            bottom.next = copy;
+            bottom = copy;
+        }
+        pushChain(top, bottom, detached.size);
+    }
+
+    /**
+     * Publishes a chain of nodes that is not published yet on top of the stack with a single compare-and-set.
+     *
+     * @param top    the top node of the chain
+     * @param bottom the bottom node of the chain
+     * @param length the number of nodes in the chain
+     */
+    private void pushChain(Node<E> top, Node<E> bottom, int length) {
+        while (true) {
+            Node<E> current = head.get();
+            bottom.next = current;
+            int size = current == null ? 0 : current.size;
+            linkSizes(top, bottom, size + length);
+            if (head.compareAndSet(current, top)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets the sizes of a chain of nodes that is not published yet, from its top down to its bottom.
+     *
+     * @param top    the top node of the chain
+     * @param bottom the bottom node of the chain
+     * @param size   the size of the stack topped by the top node
+     */
+    private static <E> void linkSizes(Node<E> top, Node<E> bottom, int size) {
+        for (Node<E> node = top; ; node = node.next) {
+            node.size = size--;
+            if (node == bottom) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A node of the stack. Its fields are written only before it is published.
+     *
+     * @param <E> the type of the element
+     */
+    private static class Node<E> {
+        private final E element;
+        private Node<E> next;
+        private int size;
+
+        /**
+         * Constructs a Node holding the given element.
+         *
+         * @param element the element
+         */
+        Node(E element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * Iterator implementation for ConcurrentStack.
+     *
+     * @param <E> the type of elements
+     */
+    private static class StackIterator<E> implements Iterator<E> {
+        private Node<E> current;
+
+        /**
+         * Constructs a StackIterator starting at the given node.
+         *
+         * @param current the top node of the snapshot
+         */
+        StackIterator(Node<E> current) {
+            this.current = current;
+        }
+
+        /**
+         * Checks if there is a next element in the iteration.
+         *
+         * @return true if there is a next element, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element
+         * @throws NoSuchElementException if there are no more elements
+         */
+        @Override
+        public E next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            E element = current.element;
+            current = current.next;
+            return element;
+        }
+    }
+}
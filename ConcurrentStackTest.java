@@ -0,0 +1,280 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@link ConcurrentStack} neither loses nor duplicates elements when threads share it.
+ */
+class ConcurrentStackTest {
+    private static final int THREADS = 8;
+    private static final int PUSHES = 20_000;
+
+    /**
+     * Threads pushing and popping on a stack with and without elimination pop every element at most once,
+     * and the popped elements together with those left on the stack are exactly the pushed ones.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    void keepsEveryElementUnderContention() throws Exception {
+        for (int slots : new int[] {0, 1, 4}) {
+            ConcurrentStack<Item> stack = new ConcurrentStack<>(slots);
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<List<Item>>> workers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    int first = t * PUSHES;
+                    workers.add(threads.submit(() -> {
+                        // Every thread pops at most as many elements as it pushed, so the stack is never empty
+                        List<Item> popped = new ArrayList<>();
+                        start.await();
+                        for (int i = 0; i < PUSHES; i++) {
+                            stack.push(new Item(first + i));
+                            if (i % 2 == 1) {
+                                popped.add(stack.pop());
+                            }
+                        }
+                        return popped;
+                    }));
+                }
+                start.countDown();
+
+                boolean[] seen = new boolean[THREADS * PUSHES];
+                for (Future<List<Item>> worker : workers) {
+                    for (Item item : worker.get()) {
+                        assertFalse(seen[item.value], "popped twice: " + item.value);
+                        seen[item.value] = true;
+                    }
+                }
+                assertEquals(THREADS * PUSHES / 2, stack.size());
+                while (!stack.isEmpty()) {
+                    Item item = stack.pop();
+                    assertFalse(seen[item.value], "popped twice: " + item.value);
+                    seen[item.value] = true;
+                }
+                for (boolean pushed : seen) {
+                    assertTrue(pushed);
+                }
+            } finally {
+                threads.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Iterators and clones keep the elements the stack had when they were created.
+     */
+    @Test
+    void iteratorsAndClonesAreSnapshots() {
+        ConcurrentStack<Item> stack = new ConcurrentStack<>(2);
+        for (int i = 0; i < 3; i++) {
+            stack.push(new Item(i));
+        }
+        Iterator<Item> iterator = stack.iterator();
+        ConcurrentStack<Item> clone = stack.clone();
+        stack.pop();
+        stack.push(new Item(9));
+
+        List<Integer> iterated = new ArrayList<>();
+        iterator.forEachRemaining(item -> iterated.add(item.value));
+        assertEquals(List.of(2, 1, 0), iterated);
+        assertEquals(3, clone.size());
+        assertEquals(2, clone.pop().value);
+        assertEquals(9, stack.peek().value);
+        assertThrows(NegativeCapacityException.class, () -> new ConcurrentStack<Item>(-1));
+        assertThrows(EmptyStackException.class, () -> new ConcurrentStack<Item>().pop());
+    }
+
+    /**
+     * A clone copies every element through the stack's cloner.
+     */
+    @Test
+    void clonesElementsThroughItsCloner() {
+        ConcurrentStack<Item> stack = new ConcurrentStack<>(2, item -> new Item(-item.value));
+        stack.push(new Item(1));
+        stack.push(new Item(2));
+        ConcurrentStack<Item> clone = stack.clone();
+        assertEquals(-2, clone.pop().value);
+        assertEquals(-1, clone.pop().value);
+        assertTrue(clone.isEmpty());
+        assertEquals(2, stack.pop().value);
+    }
+
+    /**
+     * Bulk pushes keep their order and fail as a whole, popN stores the top element last,
+     * and drainTo keeps the elements a failing collection did not accept.
+     */
+    @Test
+    void bulkOperationsKeepOrder() {
+        ConcurrentStack<Item> stack = new ConcurrentStack<>();
+        stack.pushAll(new Item[] {new Item(0), new Item(1)});
+        stack.pushAll(List.of(new Item(2), new Item(3)));
+        assertEquals(4, stack.size());
+
+        Item[] popped = new Item[3];
+        assertThrows(EmptyStackException.class, () -> stack.popN(5, new Item[5]));
+        assertThrows(IllegalArgumentException.class, () -> stack.popN(4, popped));
+        stack.popN(2, popped);
+        assertEquals(2, popped[0].value);
+        assertEquals(3, popped[1].value);
+        assertEquals(2, stack.size());
+
+        stack.pushAll(List.of(new Item(2), new Item(3)));
+        LimitedList drained = new LimitedList(2);
+        assertThrows(IllegalStateException.class, () -> stack.drainTo(drained));
+        assertEquals(3, drained.get(0).value);
+        assertEquals(2, drained.get(1).value);
+        assertEquals(2, stack.size());
+        assertEquals(1, stack.pop().value);
+        assertEquals(0, stack.pop().value);
+        assertTrue(stack.isEmpty());
+    }
+
+    /**
+     * Elements a failing collection did not accept go back on top of elements pushed while draining.
+     */
+    @Test
+    void failedDrainPushesTheRestBackOnTop() {
+        ConcurrentStack<Item> stack = new ConcurrentStack<>();
+        stack.pushAll(List.of(new Item(0), new Item(1), new Item(2)));
+        List<Item> drained = new ArrayList<>() {
+            /**
+             * Pushes another element onto the stack, then appends the element unless one was appended already.
+             *
+             * @param item the element to append
+             * @return true
+             * @throws IllegalStateException if an element was appended already
+             */
+            @Override
+            public boolean add(Item item) {
+                stack.push(new Item(9));
+                if (size() == 1) {
+                    throw new IllegalStateException("full");
+                }
+                return super.add(item);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> stack.drainTo(drained));
+        assertEquals(List.of(1, 0, 9, 9), values(stack));
+        assertEquals(4, stack.size());
+    }
+
+    /**
+     * pollOrNull reports an empty stack by returning null, even when threads empty it concurrently.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    void pollOrNullDoesNotThrow() throws Exception {
+        ConcurrentStack<Item> stack = new ConcurrentStack<>(2);
+        assertNull(stack.pollOrNull());
+        for (int i = 0; i < PUSHES; i++) {
+            stack.push(new Item(i));
+        }
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(threads.submit(() -> {
+                    int polled = 0;
+                    while (stack.pollOrNull() != null) {
+                        polled++;
+                    }
+                    return polled;
+                }));
+            }
+            int polled = 0;
+            for (Future<Integer> worker : workers) {
+                polled += worker.get();
+            }
+            assertEquals(PUSHES, polled);
+        } finally {
+            threads.shutdownNow();
+        }
+        assertTrue(stack.tryPush(new Item(0)));
+    }
+
+    /**
+     * Returns the values of the elements of a stack, from top to bottom.
+     *
+     * @param stack the stack
+     * @return the values of its elements
+     */
+    private static List<Integer> values(ConcurrentStack<Item> stack) {
+        List<Integer> values = new ArrayList<>();
+        for (Item item : stack) {
+            values.add(item.value);
+        }
+        return values;
+    }
+
+    /**
+     * An element of the stacks under test.
+     */
+    static class Item implements Cloneable {
+        final int value;
+
+        /**
+         * Constructs an Item with the given value.
+         *
+         * @param value the value
+         */
+        Item(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Returns a copy of the item.
+         *
+         * @return the copy
+         */
+        @Override
+        public Item clone() {
+            return new Item(value);
+        }
+    }
+
+    /**
+     * A list that refuses every element after its first few.
+     */
+    static class LimitedList extends ArrayList<Item> {
+        private final int limit;
+
+        /**
+         * Constructs a LimitedList accepting the given number of elements.
+         *
+         * @param limit the number of elements accepted
+         */
+        LimitedList(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Appends the element, unless the list is full.
+         *
+         * @param item the element to append
+         * @return true
+         * @throws IllegalStateException if the list is full
+         */
+        @Override
+        public boolean add(Item item) {
+            if (size() == limit) {
+                throw new IllegalStateException("full");
+            }
+            return super.add(item);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Converts stack elements to and from bytes, for stacks that store their elements off the heap.
+ *
+ * @param <E> the type of elements to convert
+ */
+public interface ElementCodec<E> {
+    /**
+     * Returns the number of bytes {@link #encode(Object, ByteBuffer)} writes for the given element.
+     *
+     * @param element the element to measure
+     * @return the encoded size of the element in bytes
+     */
+    int encodedSize(E element);
+
+    /**
+     * Writes the given element at the position of the buffer, advancing the position
+     * by exactly {@link #encodedSize(Object)} bytes.
+     *
+     * @param element the element to write
+     * @param out     the buffer to write to
+     */
+    void encode(E element, ByteBuffer out);
+
+    /**
+     * Reads an element from the buffer, between its position and its limit.
+     *
+     * @param in the buffer to read from
+     * @return the decoded element
+     */
+    E decode(ByteBuffer in);
+}
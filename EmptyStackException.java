@@ -3,6 +3,7 @@
  * Extends the {@link StackException} class.
  */
 public class EmptyStackException extends StackException {
+    private static final EmptyStackException STACKLESS = new EmptyStackException(false);
 
     /**
      * Constructs a new EmptyStackException with a default error message.
@@ -11,4 +12,24 @@ public class EmptyStackException extends StackException {
     public EmptyStackException() {
         super("The stack is empty.");
     }
+
+    /**
+     * Constructs a new EmptyStackException with the default error message,
+     * which records a stack trace only if asked to.
+     *
+     * @param writableStackTrace whether the stack trace is recorded
+     */
+    public EmptyStackException(boolean writableStackTrace) {
+        super("The stack is empty.", writableStackTrace);
+    }
+
+    /**
+     * Returns the shared stackless EmptyStackException, for callers that signal the stack is empty
+     * as part of their normal control flow. See {@link StackException} for why it can be shared.
+     *
+     * @return the shared stackless exception
+     */
+    public static EmptyStackException stackless() {
+        return STACKLESS;
+    }
 }
@@ -1,3 +1,5 @@
+import java.util.EnumSet;
+
 /**
  * An interface for iterating over a collection of songs with filtering capabilities.
  */
@@ -15,7 +17,14 @@ public interface FilteredSongIterable extends Iterable<Song> {
      *
      * @param genre the genre to filter by
      */
-    void filterGenre(Enum genre);
+    void filterGenre(Enum<?> genre);
+
+    /**
+     * Filters the songs based on the specified set of genres, keeping songs of any of them.
+     *
+     * @param genres the genres to filter by
+     */
+    void filterGenres(EnumSet<Song.Genre> genres);
 
     /**
      * Filters the songs based on the specified duration.
@@ -23,4 +32,12 @@ public interface FilteredSongIterable extends Iterable<Song> {
      * @param duration the maximum duration to filter by
      */
     void filterDuration(int duration);
+
+    /**
+     * Filters the songs based on the specified duration range.
+     *
+     * @param minDuration the minimum duration to filter by, inclusive
+     * @param maxDuration the maximum duration to filter by, inclusive
+     */
+    void filterDuration(int minDuration, int maxDuration);
 }
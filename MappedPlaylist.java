@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only playlist stored in a binary file and mapped into memory.
+ * Opening it only checks the header, so it takes constant time whatever the size of the playlist;
+ * the pages of the file are read on demand as songs are accessed, and a {@link Song} is only created
+ * when it is returned. The file holds, after a header:
+ * <ul>
+ *     <li>the end offsets of the strings of the dictionary, one int per string,</li>
+ *     <li>the name and artist of every song, as int ids into the dictionary, -1 standing for null,</li>
+ *     <li>the duration of every song, as an int,</li>
+ *     <li>the rows of the songs in name order and in duration order, as ints,</li>
+ *     <li>the genre of every song, as a byte holding its ordinal, -1 standing for null,</li>
+ *     <li>the bytes of the strings of the dictionary, in UTF-8.</li>
+ * </ul>
+ * Rows are numbered in adding order. A file is limited to 2 GB, the size of a single mapping.
+ */
+public class MappedPlaylist implements OrderSongIterable {
+    private static final int MAGIC = 0x504C5354;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int NULL_ID = -1;
+
+    private final MappedByteBuffer buffer;
+    private final int songCount;
+    private final int namesOffset;
+    private final int artistsOffset;
+    private final int durationsOffset;
+    private final int nameOrderOffset;
+    private final int durationOrderOffset;
+    private final int genresOffset;
+    private final int stringDataOffset;
+    private ScanningOrder scanningOrder;
+
+    /**
+     * Constructs a MappedPlaylist over a mapped file whose header has been read.
+     *
+     * @param buffer      the mapped file
+     * @param songCount   the number of songs
+     * @param stringCount the number of strings in the dictionary
+     */
+    private MappedPlaylist(MappedByteBuffer buffer, int songCount, int stringCount) {
+        this.buffer = buffer;
+        this.songCount = songCount;
+        this.namesOffset = HEADER_BYTES + stringCount * Integer.BYTES;
+        this.artistsOffset = namesOffset + songCount * Integer.BYTES;
+        this.durationsOffset = artistsOffset + songCount * Integer.BYTES;
+        this.nameOrderOffset = durationsOffset + songCount * Integer.BYTES;
+        this.durationOrderOffset = nameOrderOffset + songCount * Integer.BYTES;
+        this.genresOffset = durationOrderOffset + songCount * Integer.BYTES;
+        this.stringDataOffset = genresOffset + songCount;
+        this.scanningOrder = ScanningOrder.ADDING;
+    }
+
+    /**
+     * Writes all songs of the playlist to the given file, ignoring its filters, replacing the file if it exists.
+     *
+     * @param playlist the playlist to write
+     * @param path     the file to write to
+     * @throws IOException if the file cannot be written, or would be larger than 2 GB
+     */
+    public static void write(Playlist playlist, Path path) throws IOException {
+        Song[] songs = playlist.songs(ScanningOrder.ADDING);
+        Map<Song, Integer> rows = new IdentityHashMap<>(songs.length * 2);
+        Map<String, Integer> ids = new HashMap<>();
+        int[] names = new int[songs.length];
+        int[] artists = new int[songs.length];
+        long stringBytes = 0;
+        for (int row = 0; row < songs.length; row++) {
+            rows.put(songs[row], row);
+            names[row] = intern(ids, songs[row].getName());
+            artists[row] = intern(ids, songs[row].getArtist());
+        }
+        byte[][] strings = new byte[ids.size()][];
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            strings[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            stringBytes += strings[entry.getValue()].length;
+        }
+        long fileBytes = HEADER_BYTES + (long) strings.length * Integer.BYTES
+                + (long) songs.length * (5 * Integer.BYTES + 1) + stringBytes;
+        if (fileBytes > Integer.MAX_VALUE) {
+            throw new IOException("The playlist is too large for a single file: " + fileBytes + " bytes");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            out.putInt(MAGIC).putInt(VERSION).putInt(songs.length).putInt(strings.length).putInt((int) stringBytes);
+            int end = 0;
+            for (byte[] string : strings) {
+                end += string.length;
+                out.putInt(end);
+            }
+            for (int name : names) {
+                out.putInt(name);
+            }
+            for (int artist : artists) {
+                out.putInt(artist);
+            }
+            for (Song song : songs) {
+                out.putInt(song.getDuration());
+            }
+            for (Song song : playlist.songs(ScanningOrder.NAME)) {
+                out.putInt(rows.get(song));
+            }
+            for (Song song : playlist.songs(ScanningOrder.DURATION)) {
+                out.putInt(rows.get(song));
+            }
+            for (Song song : songs) {
+                out.put(song.getGenre() == null ? -1 : (byte) song.getGenre().ordinal());
+            }
+            for (byte[] string : strings) {
+                out.put(string);
+            }
+            out.force();
+        }
+    }
+
+    /**
+     * Maps the given playlist file into memory. Only the header is read.
+     *
+     * @param path the file to open
+     * @return the mapped playlist
+     * @throws IOException if the file cannot be read, is larger than 2 GB, or is not a playlist file
+     */
+    public static MappedPlaylist open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileBytes = channel.size();
+            if (fileBytes > Integer.MAX_VALUE) {
+                throw new IOException("The file is too large to be mapped: " + fileBytes + " bytes");
+            }
+            if (fileBytes < HEADER_BYTES) {
+                throw new IOException("Not a playlist file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileBytes);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Not a playlist file: " + path);
+            }
+            int songCount = buffer.getInt(2 * Integer.BYTES);
+            int stringCount = buffer.getInt(3 * Integer.BYTES);
+            int stringBytes = buffer.getInt(4 * Integer.BYTES);
+            long expected = HEADER_BYTES + (long) stringCount * Integer.BYTES
+                    + (long) songCount * (5 * Integer.BYTES + 1) + stringBytes;
+            if (songCount < 0 || stringCount < 0 || stringBytes < 0 || expected != fileBytes) {
+                throw new IOException("Corrupt playlist file: " + path);
+            }
+            return new MappedPlaylist(buffer, songCount, stringCount);
+        }
+    }
+
+    /**
+     * Returns the id of the given string in the dictionary, adding it if it is new.
+     *
+     * @param ids    the ids of the strings added so far
+     * @param string the string, or null
+     * @return the id of the string, or -1 for null
+     */
+    private static int intern(Map<String, Integer> ids, String string) {
+        if (string == null) {
+            return NULL_ID;
+        }
+        return ids.computeIfAbsent(string, added -> ids.size());
+    }
+
+    /**
+     * Returns the number of songs in the playlist.
+     *
+     * @return the number of songs
+     */
+    public int size() {
+        return songCount;
+    }
+
+    /**
+     * Sets the scanning order for the playlist. The orders are stored in the file, so switching only records it.
+     *
+     * @param order the scanning order
+     */
+    @Override
+    public void setScanningOrder(ScanningOrder order) {
+        this.scanningOrder = order;
+    }
+
+    /**
+     * Creates the song stored in the given row. Every call creates a new song.
+     *
+     * @param row the row of the song, in adding order
+     * @return the song
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public Song getSong(int row) {
+        return new Song(getName(row), getArtist(row), getGenre(row), getDuration(row));
+    }
+
+    /**
+     * Returns the name of the song in the given row, without creating the song.
+     *
+     * @param row the row of the song, in adding order
+     * @return the name of the song
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public String getName(int row) {
+        return string(buffer.getInt(namesOffset + checkRow(row) * Integer.BYTES));
+    }
+
+    /**
+     * Returns the artist of the song in the given row, without creating the song.
+     *
+     * @param row the row of the song, in adding order
+     * @return the artist of the song
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public String getArtist(int row) {
+        return string(buffer.getInt(artistsOffset + checkRow(row) * Integer.BYTES));
+    }
+
+    /**
+     * Returns the genre of the song in the given row, without creating the song.
+     *
+     * @param row the row of the song, in adding order
+     * @return the genre of the song
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public Song.Genre getGenre(int row) {
+        byte genre = buffer.get(genresOffset + checkRow(row));
+        return genre < 0 ? null : Song.Genre.values()[genre];
+    }
+
+    /**
+     * Returns the duration of the song in the given row, without creating the song.
+     *
+     * @param row the row of the song, in adding order
+     * @return the duration of the song
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public int getDuration(int row) {
+        return buffer.getInt(durationsOffset + checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * Creates a playlist holding the songs of this one, in the same adding order.
+     * Unlike the mapped playlist, this reads the whole file and adds every song.
+     *
+     * @return the new playlist
+     */
+    public Playlist toPlaylist() {
+        Playlist playlist = new Playlist();
+        for (int row = 0; row < songCount; row++) {
+            playlist.addSong(getSong(row));
+        }
+        playlist.setScanningOrder(scanningOrder);
+        return playlist;
+    }
+
+    /**
+     * Returns an iterator over the songs in the current scanning order, creating each song as it is reached.
+     *
+     * @return an iterator over the songs
+     */
+    @Override
+    public Iterator<Song> iterator() {
+        switch (scanningOrder) {
+            case NAME:
+                return new MappedIterator(nameOrderOffset);
+            case DURATION:
+                return new MappedIterator(durationOrderOffset);
+            default:
+                return new MappedIterator(-1);
+        }
+    }
+
+    /**
+     * Checks that the given row exists.
+     *
+     * @param row the row to check
+     * @return the row
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    private int checkRow(int row) {
+        if (row < 0 || row >= songCount) {
+            throw new IndexOutOfBoundsException("Invalid row: " + row);
+        }
+        return row;
+    }
+
+    /**
+     * Decodes the string with the given id from the dictionary.
+     *
+     * @param id the id of the string, or -1 for null
+     * @return the string
+     */
+    private String string(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        int start = id == 0 ? 0 : buffer.getInt(HEADER_BYTES + (id - 1) * Integer.BYTES);
+        int end = buffer.getInt(HEADER_BYTES + id * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Iterator implementation for MappedPlaylist, over the rows in adding order or in a stored order.
+     */
+    private class MappedIterator implements Iterator<Song> {
+        private final int orderOffset;
+        private int index = 0;
+
+        /**
+         * Constructs a MappedIterator.
+         *
+         * @param orderOffset the offset of the stored order to follow, or -1 for adding order
+         */
+        MappedIterator(int orderOffset) {
+            this.orderOffset = orderOffset;
+        }
+
+        /**
+         * Checks if there are more songs to iterate.
+         *
+         * @return true if there are more songs, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            return index < songCount;
+        }
+
+        /**
+         * Returns the next song in the iteration, created from the file.
+         *
+         * @return the next song
+         * @throws NoSuchElementException if there are no more songs to iterate over
+         */
+        @Override
+        public Song next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int row = orderOffset < 0 ? index : buffer.getInt(orderOffset + index * Integer.BYTES);
+            index++;
+            return getSong(row);
+        }
+    }
+}
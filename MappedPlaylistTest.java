@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that a {@link MappedPlaylist} reads back the songs and orders of the playlist it was written from.
+ */
+class MappedPlaylistTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Every scanning order of the mapped playlist lists the songs as the written playlist does,
+     * including a song without genre, two songs of the same duration, and the gap left by a removed song.
+     *
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    void readsBackEveryScanningOrder() throws IOException {
+        Playlist playlist = new Playlist();
+        playlist.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        playlist.addSong(new Song("Le Freak", "Chic", Song.Genre.DISCO, 307));
+        playlist.addSong(new Song("Hallelujah", "Milk & Honey", null, 175));
+        playlist.addSong(new Song("Tel Aviv", "Omer Adam", Song.Genre.POP, 201));
+        playlist.addSong(new Song("Ani Holem Al Milano", "Ofra Haza", Song.Genre.POP, 60));
+        playlist.removeSong(new Song("Le Freak", "Chic", Song.Genre.DISCO, 307));
+        Path file = directory.resolve("playlist.bin");
+        MappedPlaylist.write(playlist, file);
+
+        MappedPlaylist mapped = MappedPlaylist.open(file);
+        assertEquals(5, mapped.size());
+        for (ScanningOrder order : ScanningOrder.values()) {
+            playlist.setScanningOrder(order);
+            mapped.setScanningOrder(order);
+            assertEquals(render(playlist), render(mapped), order.name());
+        }
+        assertEquals(playlist.toString(), mapped.toPlaylist().toString());
+    }
+
+    /**
+     * The getters read single fields of a row, including non-ASCII strings and a missing genre,
+     * and rows outside the playlist are rejected.
+     *
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    void readsSingleFieldsOfARow() throws IOException {
+        Playlist playlist = new Playlist();
+        playlist.addSong(new Song("Ani Holem Al Milano", "Ofra Haza", null, 60));
+        playlist.addSong(new Song("Im Nin'alu", "Ofra Haza", Song.Genre.POP, 229));
+        playlist.addSong(new Song("Café", "Ofra Haza", Song.Genre.JAZZ, 200));
+        Path file = directory.resolve("playlist.bin");
+        MappedPlaylist.write(playlist, file);
+
+        MappedPlaylist mapped = MappedPlaylist.open(file);
+        assertEquals("Café", mapped.getName(2));
+        assertEquals("Ofra Haza", mapped.getArtist(1));
+        assertNull(mapped.getGenre(0));
+        assertEquals(229, mapped.getDuration(1));
+        assertEquals("Im Nin'alu, Ofra Haza, POP, 3:49", mapped.getSong(1).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.getName(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.getDuration(-1));
+        assertEquals(3, mapped.size());
+        assertEquals(0, MappedPlaylist.open(writeEmpty()).size());
+    }
+
+    /**
+     * Files that are not playlists, or whose size does not match their header, are rejected when opened.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path text = Files.writeString(directory.resolve("text.txt"), "not a playlist, but long enough to have a header");
+        assertThrows(IOException.class, () -> MappedPlaylist.open(text));
+        Path tiny = Files.write(directory.resolve("tiny.bin"), new byte[3]);
+        assertThrows(IOException.class, () -> MappedPlaylist.open(tiny));
+
+        Path truncated = directory.resolve("truncated.bin");
+        Playlist playlist = new Playlist();
+        playlist.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        MappedPlaylist.write(playlist, truncated);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MappedPlaylist.open(truncated));
+    }
+
+    /**
+     * Writes an empty playlist to a new file.
+     *
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path writeEmpty() throws IOException {
+        Path file = Files.createTempFile(directory, "empty", ".bin");
+        MappedPlaylist.write(new Playlist(), file);
+        return file;
+    }
+
+    /**
+     * Renders the songs a playlist hands out, in its scanning order.
+     *
+     * @param songs the playlist
+     * @return the rendered songs
+     */
+    private static List<String> render(Iterable<Song> songs) {
+        List<String> rendered = new ArrayList<>();
+        for (Song song : songs) {
+            rendered.add(song.toString());
+        }
+        return rendered;
+    }
+}
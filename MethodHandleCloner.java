@@ -0,0 +1,97 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The default {@link Cloner}, which calls the public {@code clone} method of each element.
+ * The method handle for {@code clone} is looked up once per element class and cached.
+ */
+class MethodHandleCloner implements Cloner<Object> {
+    static final MethodHandleCloner INSTANCE = new MethodHandleCloner();
+
+    private static final MethodType CLONE_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final ClassValue<MethodHandle> CLONE_HANDLES = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.lookup().findVirtual(type, "clone", CLONE_TYPE).asType(INVOKE_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+    };
+
+    /**
+     * Constructs the MethodHandleCloner. Use {@link #INSTANCE} instead.
+     */
+    private MethodHandleCloner() {
+    }
+
+    /**
+     * Returns a clone of the given element.
+     *
+     * @param element the element to clone
+     * @return the clone of the element
+     * @throws StackException if the element has no accessible clone method, or its clone method fails
+     */
+    @Override
+    public Object cloneElement(Object element) {
+        return invoke(handleFor(element.getClass()), element);
+    }
+
+    /**
+     * Replaces each of the first {@code count} elements of the array by its clone.
+     * The handle is looked up again only when the class changes from one element to the next.
+     *
+     * @param elements the elements to clone in place
+     * @param count    the number of elements to clone
+     * @throws StackException if an element cannot be cloned
+     */
+    @Override
+    public void cloneAll(Object[] elements, int count) {
+        Class<?> type = null;
+        MethodHandle handle = null;
+        for (int i = 0; i < count; i++) {
+            Object element = elements[i];
+            if (element.getClass() != type) {
+                type = element.getClass();
+                handle = handleFor(type);
+            }
+            elements[i] = invoke(handle, element);
+        }
+    }
+
+    /**
+     * Returns the cached clone handle of the given class.
+     *
+     * @param type the class of the element
+     * @return the clone handle
+     * @throws StackException if the class has no accessible clone method
+     */
+    private static MethodHandle handleFor(Class<?> type) {
+        MethodHandle handle = CLONE_HANDLES.get(type);
+        if (handle == null) {
+            throw new StackException("Cannot clone elements of " + type.getName());
+        }
+        return handle;
+    }
+
+    /**
+     * Invokes a clone handle on the given element.
+     *
+     * @param handle  the clone handle
+     * @param element the element to clone
+     * @return the clone of the element
+     * @throws StackException if the clone method fails
+     */
+    private static Object invoke(MethodHandle handle, Object element) {
+        try {
+            return (Object) handle.invokeExact(element);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StackException("Cannot clone element " + element, e);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a stack that stores its elements off the heap, encoded by an {@link ElementCodec}
+ * into a growable direct buffer. Each element is stored as its encoded bytes followed by their length,
+ * so the top element can always be found from the end of the used bytes.
+ * Elements are decoded into new objects whenever they are read, so clones never share elements.
+ * Closing the stack drops its buffer at once, and every later call fails with a {@link StackException}.
+ * Buffers, whether dropped by closing or replaced by a larger one, are freed by the garbage collector
+ * once no view returned by {@link #peekView()} refers to them, so a view never reads freed memory.
+ *
+ * @param <E> the type of elements stored in the stack, must implement Cloneable
+ */
+public class OffHeapStack<E extends Cloneable> implements Stack<E>, Iterable<E>, AutoCloseable {
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int MIN_CAPACITY = 64;
+
+    private final ElementCodec<E> codec;
+    private final int maxBytes;
+    private ByteBuffer buffer;
+    private int used;
+    private int count;
+
+    /**
+     * Constructs an OffHeapStack that starts with a buffer of the given size and grows it
+     * by doubling, up to the given maximum.
+     *
+     * @param codec        the codec used to store the elements
+     * @param initialBytes the initial size of the buffer in bytes
+     * @param maxBytes     the maximum size of the buffer in bytes
+     * @throws NegativeCapacityException if either size is negative
+     * @throws IllegalArgumentException  if the maximum size is smaller than the initial size
+     */
+    public OffHeapStack(ElementCodec<E> codec, int initialBytes, int maxBytes) {
+        if (initialBytes < 0 || maxBytes < 0) {
+            throw new NegativeCapacityException();
+        }
+        if (maxBytes < initialBytes) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maxBytes);
+        }
+        this.codec = codec;
+        this.maxBytes = maxBytes;
+        this.buffer = ByteBuffer.allocateDirect(initialBytes);
+        this.used = 0;
+        this.count = 0;
+    }
+
+    /**
+     * Adds an element to the top of the stack.
+     *
+     * @param element the element to be pushed onto the stack
+     * @throws StackOverflowException if the element does not fit in the maximum buffer size
+     * @throws StackException         if the stack is closed
+     */
+    @Override
+    public void push(E element) {
+        ensureOpen();
+        if (!tryPush(element)) {
+            throw new StackOverflowException();
+        }
+    }
+
+    /**
+     * Adds an element to the top of the stack if it fits in the maximum buffer size.
+     *
+     * @param element the element to be pushed onto the stack
+     * @return true if the element was pushed, false if it does not fit
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public boolean tryPush(E element) {
+        ensureOpen();
+        int length = codec.encodedSize(element);
+        long needed = (long) used + length + LENGTH_BYTES;
+        if (needed > maxBytes) {
+            return false;
+        }
+        if (needed > buffer.capacity()) {
+            grow((int) needed);
+        }
+        append(element, length);
+        return true;
+    }
+
+    /**
+     * Pushes all elements of the array in order, checking the space they need and growing the buffer only once.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @throws StackOverflowException if the elements do not fit in the maximum buffer size, in which case none is pushed
+     * @throws StackException         if the stack is closed
+     */
+    @Override
+    public void pushAll(E[] elements) {
+        ensureOpen();
+        pushAll(Arrays.asList(elements));
+    }
+
+    /**
+     * Pushes all elements of the collection in iteration order, checking the space they need
+     * and growing the buffer only once.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @throws StackOverflowException if the elements do not fit in the maximum buffer size, in which case none is pushed
+     * @throws StackException         if the stack is closed
+     */
+    @Override
+    public void pushAll(Collection<? extends E> elements) {
+        ensureOpen();
+        long needed = used;
+        for (E element : elements) {
+            needed += codec.encodedSize(element) + LENGTH_BYTES;
+        }
+        if (needed > maxBytes) {
+            throw new StackOverflowException();
+        }
+        if (needed > buffer.capacity()) {
+            grow((int) needed);
+        }
+        for (E element : elements) {
+            append(element, codec.encodedSize(element));
+        }
+    }
+
+    /**
+     * Removes and returns the element at the top of the stack.
+     *
+     * @return the element at the top of the stack
+     * @throws EmptyStackException if the stack is empty
+     * @throws StackException      if the stack is closed
+     */
+    @Override
+    public E pop() {
+        ensureOpen();
+        if (count == 0) {
+            throw new EmptyStackException();
+        }
+        return pollOrNull();
+    }
+
+    /**
+     * Removes and returns the element at the top of the stack, or returns null if the stack is empty,
+     * without creating an exception.
+     *
+     * @return the element at the top of the stack, or null if the stack is empty
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public E pollOrNull() {
+        ensureOpen();
+        if (count == 0) {
+            return null;
+        }
+        E element = decode(used);
+        used = start(used);
+        count--;
+        return element;
+    }
+
+    /**
+     * Returns the element at the top of the stack without removing it, decoded into a new object.
+     *
+     * @return the element at the top of the stack
+     * @throws EmptyStackException if the stack is empty
+     * @throws StackException      if the stack is closed
+     */
+    @Override
+    public E peek() {
+        ensureOpen();
+        if (count == 0) {
+            throw new EmptyStackException();
+        }
+        return decode(used);
+    }
+
+    /**
+     * Pops the given number of elements into the start of the array, the former top element being stored last.
+     *
+     * @param count       the number of elements to pop
+     * @param destination the array receiving the popped elements
+     * @throws EmptyStackException      if the stack holds fewer than count elements, in which case none is popped
+     * @throws IllegalArgumentException if count is negative or larger than the array
+     * @throws StackException           if the stack is closed
+     */
+    @Override
+    public void popN(int count, E[] destination) {
+        ensureOpen();
+        if (count < 0 || count > destination.length) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        if (count > this.count) {
+            throw new EmptyStackException();
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            destination[i] = decode(used);
+            used = start(used);
+        }
+        this.count -= count;
+    }
+
+    /**
+     * Pops every element of the stack into the collection, from top to bottom.
+     * An element is only removed once the collection has accepted it, so if adding fails,
+     * the elements not yet added stay on the stack.
+     *
+     * @param destination the collection receiving the popped elements
+     * @return the number of elements popped
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public int drainTo(Collection<? super E> destination) {
+        ensureOpen();
+        int drained = 0;
+        while (used > 0) {
+            destination.add(decode(used));
+            used = start(used);
+            count--;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns a read-only view of the encoded bytes of the top element, without copying or decoding them.
+     * The view keeps its memory alive, but its bytes are only meaningful until the next push, pop or close.
+     *
+     * @return a view of the bytes of the top element
+     * @throws EmptyStackException if the stack is empty
+     * @throws StackException      if the stack is closed
+     */
+    public ByteBuffer peekView() {
+        ensureOpen();
+        if (count == 0) {
+            throw new EmptyStackException();
+        }
+        int start = start(used);
+        return buffer.slice(start, used - LENGTH_BYTES - start).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the number of elements in the stack.
+     *
+     * @return the size of the stack
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public int size() {
+        ensureOpen();
+        return count;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return true if the stack is empty, false otherwise
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public boolean isEmpty() {
+        ensureOpen();
+        return count == 0;
+    }
+
+    /**
+     * Creates a copy of the stack with its own buffer. The encoded bytes are copied in one block.
+     *
+     * @return a cloned instance of the stack
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public OffHeapStack<E> clone() {
+        ensureOpen();
+        OffHeapStack<E> clonedStack = new OffHeapStack<>(codec, buffer.capacity(), maxBytes);
+        clonedStack.buffer.put(0, buffer, 0, used);
+        clonedStack.used = used;
+        clonedStack.count = count;
+        return clonedStack;
+    }
+
+    /**
+     * Returns an iterator over the elements of the stack from top to bottom, decoding each of them.
+     *
+     * @return an iterator
+     * @throws StackException if the stack is closed
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ensureOpen();
+        return new StackIterator();
+    }
+
+    /**
+     * Drops the buffer of the stack, so that its memory is freed as soon as no view refers to it.
+     * The stack cannot be used afterwards. Calling it again has no effect.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+        used = 0;
+        count = 0;
+    }
+
+    /**
+     * Checks that the stack is not closed.
+     *
+     * @throws StackException if the stack is closed
+     */
+    private void ensureOpen() {
+        if (buffer == null) {
+            throw new StackException("The stack is closed.");
+        }
+    }
+
+    /**
+     * Replaces the buffer by one at least twice as large, and at least as large as needed,
+     * without exceeding the maximum size. The old buffer is dropped as on {@link #close()}.
+     *
+     * @param needed the number of bytes needed
+     */
+    private void grow(int needed) {
+        long capacity = Math.max(Math.max(buffer.capacity() * 2L, MIN_CAPACITY), needed);
+        ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(capacity, maxBytes));
+        grown.put(0, buffer, 0, used);
+        buffer = grown;
+    }
+
+    /**
+     * Encodes an element and its length after the used bytes of the buffer, which must have room for them.
+     *
+     * @param element the element to write
+     * @param length  the encoded size of the element
+     * @throws StackException if the codec writes a different number of bytes than it reported
+     */
+    private void append(E element, int length) {
+        buffer.limit(used + length).position(used);
+        codec.encode(element, buffer);
+        if (buffer.position() != used + length) {
+            buffer.clear();
+            throw new StackException("The codec wrote a different number of bytes than it reported.");
+        }
+        buffer.clear();
+        buffer.putInt(used + length, length);
+        used += length + LENGTH_BYTES;
+        count++;
+    }
+
+    /**
+     * Returns the offset of the element that ends at the given offset.
+     *
+     * @param end the offset just after the length of the element
+     * @return the offset of the first byte of the element
+     */
+    private int start(int end) {
+        return end - LENGTH_BYTES - buffer.getInt(end - LENGTH_BYTES);
+    }
+
+    /**
+     * Decodes the element that ends at the given offset.
+     *
+     * @param end the offset just after the length of the element
+     * @return the decoded element
+     */
+    private E decode(int end) {
+        int start = start(end);
+        buffer.limit(end - LENGTH_BYTES).position(start);
+        try {
+            return codec.decode(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Iterator implementation for OffHeapStack.
+     */
+    private class StackIterator implements Iterator<E> {
+        private int end = used;
+
+        /**
+         * Checks if there is a next element in the iteration.
+         *
+         * @return true if there is a next element, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            return end > 0;
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element
+         * @throws NoSuchElementException if there are no more elements
+         * @throws StackException         if the stack is closed
+         */
+        @Override
+        public E next() {
+            ensureOpen();
+            if (end <= 0) {
+                throw new NoSuchElementException();
+            }
+            E element = decode(end);
+            end = start(end);
+            return element;
+        }
+    }
+}
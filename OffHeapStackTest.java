@@ -0,0 +1,251 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that an {@link OffHeapStack} keeps its encoded elements while its buffer grows,
+ * and cannot be used once closed.
+ */
+class OffHeapStackTest {
+    private static final ItemCodec CODEC = new ItemCodec();
+
+    /**
+     * Elements of different sizes keep their order while the buffer grows from empty,
+     * and an element that does not fit in the maximum size overflows without changing the stack.
+     */
+    @Test
+    void growsUpToItsMaximumSize() {
+        OffHeapStack<Item> stack = new OffHeapStack<>(CODEC, 0, 1000);
+        int bytes = 0;
+        int pushed = 0;
+        while (bytes + encodedSize(pushed) <= 1000) {
+            stack.push(new Item(pushed));
+            bytes += encodedSize(pushed++);
+        }
+        int size = stack.size();
+        assertThrows(StackOverflowException.class, () -> stack.push(new Item(size)));
+        assertEquals(pushed, stack.size());
+        for (int i = pushed - 1; i >= 0; i--) {
+            assertEquals(i, stack.peek().value);
+            assertEquals(i, stack.pop().value);
+        }
+        assertTrue(stack.isEmpty());
+        assertThrows(EmptyStackException.class, stack::pop);
+        assertThrows(EmptyStackException.class, stack::peekView);
+    }
+
+    /**
+     * A view holds the encoded bytes of the top element, and stays readable after the buffer grew or the stack closed.
+     */
+    @Test
+    void viewsStayReadable() {
+        OffHeapStack<Item> stack = new OffHeapStack<>(CODEC, 8, 4096);
+        stack.push(new Item(7));
+        ByteBuffer view = stack.peekView();
+        assertEquals(CODEC.encodedSize(new Item(7)), view.remaining());
+        assertEquals(7, view.getInt(0));
+        assertTrue(view.isReadOnly());
+
+        for (int i = 0; i < 100; i++) {
+            stack.push(new Item(i));
+        }
+        assertEquals(7, view.getInt(0));
+        ByteBuffer top = stack.peekView();
+        stack.close();
+        assertEquals(99, top.getInt(0));
+    }
+
+    /**
+     * Every method of a closed stack and of its iterators fails, closing it again has no effect,
+     * and clones taken before keep their own copy of the elements.
+     */
+    @Test
+    void closedStackCannotBeUsed() {
+        OffHeapStack<Item> stack = new OffHeapStack<>(CODEC, 64, 64);
+        stack.push(new Item(1));
+        stack.push(new Item(2));
+        Iterator<Item> iterator = stack.iterator();
+        OffHeapStack<Item> clone = stack.clone();
+        assertNotSame(stack.peek(), stack.peek());
+        stack.close();
+        stack.close();
+
+        assertThrows(StackException.class, () -> stack.push(new Item(3)));
+        assertThrows(StackException.class, stack::pop);
+        assertThrows(StackException.class, stack::peek);
+        assertThrows(StackException.class, stack::peekView);
+        assertThrows(StackException.class, stack::size);
+        assertThrows(StackException.class, stack::isEmpty);
+        assertThrows(StackException.class, stack::clone);
+        assertThrows(StackException.class, stack::iterator);
+        assertThrows(StackException.class, iterator::next);
+        assertEquals(2, clone.pop().value);
+        assertEquals(1, clone.pop().value);
+        assertFalse(clone.iterator().hasNext());
+    }
+
+    /**
+     * Bulk pushes keep their order and fail as a whole, popN stores the top element last,
+     * and drainTo keeps the elements a failing collection did not accept.
+     */
+    @Test
+    void bulkOperationsKeepOrder() {
+        OffHeapStack<Item> stack = new OffHeapStack<>(CODEC, 0, 5 * encodedSize(4));
+        stack.pushAll(new Item[] {new Item(0), new Item(1)});
+        stack.pushAll(List.of(new Item(2), new Item(3)));
+        assertThrows(StackOverflowException.class, () -> stack.pushAll(List.of(new Item(4), new Item(4))));
+        assertEquals(4, stack.size());
+
+        Item[] popped = new Item[3];
+        assertThrows(EmptyStackException.class, () -> stack.popN(5, new Item[5]));
+        assertThrows(IllegalArgumentException.class, () -> stack.popN(4, popped));
+        stack.popN(2, popped);
+        assertEquals(2, popped[0].value);
+        assertEquals(3, popped[1].value);
+        assertEquals(2, stack.size());
+
+        stack.pushAll(List.of(new Item(2), new Item(3)));
+        LimitedList drained = new LimitedList(3);
+        assertThrows(IllegalStateException.class, () -> stack.drainTo(drained));
+        assertEquals(3, drained.size());
+        assertEquals(1, stack.size());
+        assertEquals(0, stack.peek().value);
+        assertEquals(1, stack.drainTo(new ArrayList<>()));
+        assertTrue(stack.isEmpty());
+    }
+
+    /**
+     * tryPush and pollOrNull report a full or empty stack by their result instead of throwing.
+     */
+    @Test
+    void tryPushAndPollOrNullDoNotThrow() {
+        OffHeapStack<Item> stack = new OffHeapStack<>(CODEC, 0, encodedSize(0) + encodedSize(1));
+        assertNull(stack.pollOrNull());
+        assertTrue(stack.tryPush(new Item(0)));
+        assertTrue(stack.tryPush(new Item(1)));
+        assertFalse(stack.tryPush(new Item(0)));
+        assertEquals(1, stack.pollOrNull().value);
+        assertEquals(0, stack.pollOrNull().value);
+        assertNull(stack.pollOrNull());
+    }
+
+    /**
+     * Returns the number of bytes an item with the given value is encoded into, with its length.
+     *
+     * @param value the value of the item
+     * @return the bytes taken in the buffer
+     */
+    private static int encodedSize(int value) {
+        return CODEC.encodedSize(new Item(value)) + Integer.BYTES;
+    }
+
+    /**
+     * An element of the stacks under test.
+     */
+    static class Item implements Cloneable {
+        final int value;
+
+        /**
+         * Constructs an Item with the given value.
+         *
+         * @param value the value
+         */
+        Item(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Returns a copy of the item.
+         *
+         * @return the copy
+         */
+        @Override
+        public Item clone() {
+            return new Item(value);
+        }
+    }
+
+    /**
+     * Encodes an item as its value followed by a padding that depends on the value, so that sizes vary.
+     */
+    static class ItemCodec implements ElementCodec<Item> {
+        /**
+         * Returns the encoded size of an item.
+         *
+         * @param item the item
+         * @return its encoded size in bytes
+         */
+        @Override
+        public int encodedSize(Item item) {
+            return Integer.BYTES + item.value % 5;
+        }
+
+        /**
+         * Writes an item and its padding.
+         *
+         * @param item the item
+         * @param out  the buffer to write to
+         */
+        @Override
+        public void encode(Item item, ByteBuffer out) {
+            out.putInt(item.value);
+            for (int i = 0; i < item.value % 5; i++) {
+                out.put((byte) i);
+            }
+        }
+
+        /**
+         * Reads an item, skipping its padding.
+         *
+         * @param in the buffer to read from
+         * @return the item
+         */
+        @Override
+        public Item decode(ByteBuffer in) {
+            Item item = new Item(in.getInt());
+            in.position(in.limit());
+            return item;
+        }
+    }
+
+    /**
+     * A list that refuses every element after its first few.
+     */
+    static class LimitedList extends ArrayList<Item> {
+        private final int limit;
+
+        /**
+         * Constructs a LimitedList accepting the given number of elements.
+         *
+         * @param limit the number of elements accepted
+         */
+        LimitedList(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Appends the element, unless the list is full.
+         *
+         * @param item the element to append
+         * @return true
+         * @throws IllegalStateException if the list is full
+         */
+        @Override
+        public boolean add(Item item) {
+            if (size() == limit) {
+                throw new IllegalStateException("full");
+            }
+            return super.add(item);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a stack built from immutable nodes, so that every version of it can be kept and shared.
+ * {@link #pushed(Object)} and {@link #popped()} return new versions and leave this one unchanged;
+ * the {@link Stack} methods move this stack to the new version instead.
+ * A version shares all of its nodes with the version it was made from, so {@link #clone()} and
+ * every push and pop take constant time and memory. Clones share the elements, which are not cloned.
+ *
+ * @param <E> the type of elements stored in the stack, must implement Cloneable
+ */
+public class PersistentStack<E extends Cloneable> implements Stack<E>, Iterable<E> {
+    private Node<E> head;
+
+    /**
+     * Constructs an empty PersistentStack.
+     */
+    public PersistentStack() {
+        this.head = null;
+    }
+
+    /**
+     * Constructs a PersistentStack whose top node is the given one.
+     *
+     * @param head the top node, or null for an empty stack
+     */
+    private PersistentStack(Node<E> head) {
+        this.head = head;
+    }
+
+    /**
+     * Returns a new version of the stack with the given element on top. This stack is not changed.
+     *
+     * @param element the element to push
+     * @return the new version of the stack
+     */
+    public PersistentStack<E> pushed(E element) {
+        return new PersistentStack<>(new Node<>(element, head));
+    }
+
+    /**
+     * Returns a new version of the stack without its top element. This stack is not changed.
+     *
+     * @return the new version of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    public PersistentStack<E> popped() {
+        if (head == null) {
+            throw new EmptyStackException();
+        }
+        return new PersistentStack<>(head.next);
+    }
+
+    /**
+     * Adds an element to the top of the stack.
+     *
+     * @param element the element to be pushed onto the stack
+     */
+    @Override
+    public void push(E element) {
+        head = new Node<>(element, head);
+    }
+
+    /**
+     * Removes and returns the element at the top of the stack.
+     *
+     * @return the element at the top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    @Override
+    public E pop() {
+        if (head == null) {
+            throw new EmptyStackException();
+        }
+        E element = head.element;
+        head = head.next;
+        return element;
+    }
+
+    /**
+     * Returns the element at the top of the stack without removing it.
+     *
+     * @return the element at the top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    @Override
+    public E peek() {
+        if (head == null) {
+            throw new EmptyStackException();
+        }
+        return head.element;
+    }
+
+    /**
+     * Returns the number of elements in the stack.
+     *
+     * @return the size of the stack
+     */
+    @Override
+    public int size() {
+        return head == null ? 0 : head.size;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return true if the stack is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Creates a snapshot of the stack in constant time. The snapshot shares its nodes and elements
+     * with this stack, and later pushes and pops on either of them do not affect the other.
+     *
+     * @return a snapshot of the stack
+     */
+    @Override
+    public PersistentStack<E> clone() {
+        return new PersistentStack<>(head);
+    }
+
+    /**
+     * Returns an iterator over the elements of the stack from top to bottom.
+     *
+     * @return an iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new StackIterator<>(head);
+    }
+
+    /**
+     * An immutable node of the stack.
+     *
+     * @param <E> the type of the element
+     */
+    private static final class Node<E> {
+        private final E element;
+        private final Node<E> next;
+        private final int size;
+
+        /**
+         * Constructs a Node on top of the given node.
+         *
+         * @param element the element
+         * @param next    the node below, or null
+         */
+        Node(E element, Node<E> next) {
+            this.element = element;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+
+    /**
+     * Iterator implementation for PersistentStack.
+     *
+     * @param <E> the type of elements
+     */
+    private static class StackIterator<E> implements Iterator<E> {
+        private Node<E> current;
+
+        /**
+         * Constructs a StackIterator starting at the given node.
+         *
+         * @param current the top node
+         */
+        StackIterator(Node<E> current) {
+            this.current = current;
+        }
+
+        /**
+         * Checks if there is a next element in the iteration.
+         *
+         * @return true if there is a next element, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element
+         * @throws NoSuchElementException if there are no more elements
+         */
+        @Override
+        public E next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            E element = current.element;
+            current = current.next;
+            return element;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that every version of a {@link PersistentStack} keeps its elements when other versions change.
+ */
+class PersistentStackTest {
+    /**
+     * Pushing and popping a new version leaves the version it was made from unchanged.
+     */
+    @Test
+    void newVersionsLeaveOldOnesUnchanged() {
+        PersistentStack<Item> empty = new PersistentStack<>();
+        PersistentStack<Item> one = empty.pushed(new Item(1));
+        PersistentStack<Item> two = one.pushed(new Item(2));
+        PersistentStack<Item> other = one.pushed(new Item(3));
+
+        assertTrue(empty.isEmpty());
+        assertEquals(List.of(1), values(one));
+        assertEquals(List.of(2, 1), values(two));
+        assertEquals(List.of(3, 1), values(other));
+        assertEquals(List.of(1), values(two.popped()));
+        assertEquals(2, two.size());
+        assertThrows(EmptyStackException.class, empty::popped);
+        assertThrows(EmptyStackException.class, empty::peek);
+    }
+
+    /**
+     * A clone shares the elements of the stack, and changing either one through the Stack methods
+     * does not change the other.
+     */
+    @Test
+    void clonesAreIndependentSnapshots() {
+        PersistentStack<Item> stack = new PersistentStack<>();
+        Item first = new Item(1);
+        stack.push(first);
+        stack.push(new Item(2));
+        PersistentStack<Item> clone = stack.clone();
+
+        assertEquals(2, stack.pop().value);
+        stack.push(new Item(4));
+        clone.push(new Item(3));
+        assertEquals(List.of(4, 1), values(stack));
+        assertEquals(List.of(3, 2, 1), values(clone));
+        clone.pop();
+        clone.pop();
+        assertSame(first, clone.pop());
+        assertThrows(EmptyStackException.class, clone::pop);
+        assertEquals(2, stack.size());
+    }
+
+    /**
+     * Returns the values of the elements of a stack, from top to bottom.
+     *
+     * @param stack the stack
+     * @return the values of its elements
+     */
+    private static List<Integer> values(PersistentStack<Item> stack) {
+        List<Integer> values = new ArrayList<>();
+        for (Item item : stack) {
+            values.add(item.value);
+        }
+        return values;
+    }
+
+    /**
+     * An element of the stacks under test.
+     */
+    static class Item implements Cloneable {
+        final int value;
+
+        /**
+         * Constructs an Item with the given value.
+         *
+         * @param value the value
+         */
+        Item(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Returns a copy of the item.
+         *
+         * @return the copy
+         */
+        @Override
+        public Item clone() {
+            return new Item(value);
+        }
+    }
+}
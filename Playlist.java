@@ -1,3 +1,8 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 /**
@@ -5,15 +10,37 @@ import java.util.*;
  * Implements the {@link OrderSongIterable}, {@link FilteredSongIterable}, and {@link Cloneable} interfaces.
  */
 public class Playlist implements OrderSongIterable, FilteredSongIterable, Cloneable {
-    private List<Song> songs;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Comparator<Song> NAME_ORDER = Song::compareByName;
+    private static final Comparator<Song> DURATION_ORDER =
+            Comparator.comparingInt(Song::getDuration).thenComparing(NAME_ORDER);
+
     private ScanningOrder scanningOrder;
     private String filterArtist;
-    private Enum filterGenre;
+    private EnumSet<Song.Genre> filterGenres;
+    private int filterMinDuration;
     private int filterDuration;
     private int size;
-    private List<Song> filteredSongs;
-    private int filteredSongsSize;
-    private List<Song> originalOrder;
+    private boolean durationFiltered;
+    private BitSet excludedSlots;
+    private boolean exclusionsStale;
+    private Song[] slots;
+    private int slotCount;
+    private Map<Song, Integer> slotIndex;
+    private TreeSet<Song> nameIndex;
+    private TreeSet<Song> durationIndex;
+    private EnumMap<Song.Genre, BitSet> genreIndex;
+    private Map<Song, Song> changedSongs;
+    private Set<Song> changingSongs;
+    private boolean nameIndexScanned;
+    private boolean durationIndexScanned;
+    private int modCount;
+    private int songsHash;
+    private boolean storageShared;
+    private List<WeakReference<Playlist>> clones;
+    private int clonesPruneAt;
+    private Runnable songListener;
+    private Object songLock;
 
     /**
      * Constructs a new Playlist object.
@@ -21,13 +48,28 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
      * and initializes other variables.
      */
     public Playlist() {
-        this.songs = new ArrayList<>();
         this.scanningOrder = ScanningOrder.ADDING;
-        this.originalOrder = new ArrayList<>();
-        this.filteredSongs = new ArrayList<>();
-        this.filteredSongsSize = 0;
+        this.slots = new Song[INITIAL_CAPACITY];
+        this.slotCount = 0;
+        this.slotIndex = new HashMap<>();
+        this.nameIndex = new TreeSet<>(NAME_ORDER);
+        this.durationIndex = new TreeSet<>(DURATION_ORDER);
+        this.genreIndex = newGenreIndex();
+        this.changedSongs = new IdentityHashMap<>();
+        this.changingSongs = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.nameIndexScanned = false;
+        this.durationIndexScanned = false;
+        this.modCount = 0;
+        this.songsHash = 0;
+        this.storageShared = false;
+        this.clones = null;
+        this.clonesPruneAt = 0;
+        this.songListener = null;
+        this.songLock = null;
+        this.excludedSlots = new BitSet();
         this.filterArtist = null;
-        this.filterGenre = null;
+        this.filterGenres = null;
+        this.filterMinDuration = Integer.MIN_VALUE;
         this.filterDuration = -1;
         this.size = 0;
     }
@@ -39,157 +81,643 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
      * @throws SongAlreadyExistsException if the song already exists in the playlist
      */
     public void addSong(Song song) throws SongAlreadyExistsException {
-        for (Song existingSong : songs) {
-            if (existingSong.equals(song)) {
-                throw new SongAlreadyExistsException();
-            }
+        if (!tryAddSong(song)) {
+            throw new SongAlreadyExistsException();
+        }
+    }
+
+    /**
+     * Adds a song to the playlist unless it already exists in it, without throwing.
+     *
+     * @param song the song to add
+     * @return true if the song was added, false if it already exists in the playlist
+     */
+    public boolean tryAddSong(Song song) {
+        if (slotIndex.containsKey(song)) {
+            return false;
         }
+        checkSongMutations();
+        ensureOwnStorage();
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[slotCount] = song;
+        slotIndex.put(song, slotCount);
+        song.addOwner(this);
+        indexGenre(song, slotCount);
+        if (!exclusionsStale && isRejected(song)) {
+            excludedSlots.set(slotCount);
+        }
+        slotCount++;
         size++;
-        originalOrder.add(song);
-        songs.add(song);
+        modCount++;
+        songsHash += song.hashCode();
+        nameIndex.add(song);
+        durationIndex.add(song);
+        return true;
     }
 
     /**
      * Removes a song from the playlist.
+     * The slot of the removed song is left empty and reclaimed once more than half of the slots are empty.
      *
      * @param song the song to remove
      * @return true if the song was removed successfully, false otherwise
      */
     public boolean removeSong(Song song) {
-        int index = 0;
-        for (Song existingSong : songs) {
-            if (existingSong.equals(song)) {
-                songs.remove(index);
-                size--;
-                originalOrder.remove(index);
-                return true;
+        if (!slotIndex.containsKey(song)) {
+            return false;
+        }
+        checkSongMutations();
+        ensureOwnStorage();
+        int slot = slotIndex.remove(song);
+        Song removed = slots[slot];
+        songsHash -= removed.hashCode();
+        if (!hasLiveClones()) {
+            removed.removeOwner(this);
+        }
+        slots[slot] = null;
+        excludedSlots.clear(slot);
+        for (BitSet genreSlots : genreIndex.values()) {
+            genreSlots.clear(slot);
+        }
+        size--;
+        modCount++;
+        nameIndex.remove(removed);
+        // A song still changing on another thread sits in the duration index as a copy of its old state
+        Song indexed = changedSongs.remove(removed);
+        changingSongs.remove(removed);
+        durationIndex.remove(indexed == null ? removed : indexed);
+        if (size < slotCount / 2) {
+            compactSlots();
+        }
+        return true;
+    }
+
+    /**
+     * Moves the remaining songs to the front of the slot array, keeping their adding order,
+     * and updates the slot index accordingly.
+     */
+    private void compactSlots() {
+        int next = 0;
+        for (int i = 0; i < slotCount; i++) {
+            Song current = slots[i];
+            if (current != null) {
+                slots[next] = current;
+                slotIndex.put(current, next);
+                excludedSlots.set(next, excludedSlots.get(i));
+                next++;
             }
-            index++;
         }
-        return false;
+        Arrays.fill(slots, next, slotCount, null);
+        excludedSlots.clear(next, slotCount);
+        slotCount = next;
+        rebuildGenreIndex();
     }
 
     /**
-     * Sets the scanning order for the playlist.
+     * Creates an empty genre index with a bitmap for every genre.
      *
-     * @param order the scanning order
+     * @return the new genre index
      */
-    public void setScanningOrder(ScanningOrder order) {
-        this.scanningOrder = order;
-        if (scanningOrder == ScanningOrder.ADDING) {
-            songs = new ArrayList<>(originalOrder);
-        } else {
-            switch (scanningOrder) {
-                case NAME:
-                    songs.sort(Comparator.comparing(Song::getName).thenComparing(Song::getArtist));
-                    break;
-                case DURATION:
-                    songs.sort(Comparator.comparing(Song::getDuration));
-                    break;
-                default:
-                    // No sorting needed for ADDING order
-                    break;
-            }
+    private static EnumMap<Song.Genre, BitSet> newGenreIndex() {
+        EnumMap<Song.Genre, BitSet> index = new EnumMap<>(Song.Genre.class);
+        for (Song.Genre genre : Song.Genre.values()) {
+            index.put(genre, new BitSet());
         }
+        return index;
+    }
 
+    /**
+     * Copies the slots and indexes before they are changed, if they are still shared with a clone.
+     */
+    private void ensureOwnStorage() {
+        if (!storageShared) {
+            return;
+        }
+        slots = slots.clone();
+        slotIndex = new HashMap<>(slotIndex);
+        nameIndex = new TreeSet<>(nameIndex);
+        durationIndex = new TreeSet<>(durationIndex);
+        EnumMap<Song.Genre, BitSet> copy = new EnumMap<>(Song.Genre.class);
+        for (Map.Entry<Song.Genre, BitSet> entry : genreIndex.entrySet()) {
+            copy.put(entry.getKey(), (BitSet) entry.getValue().clone());
+        }
+        genreIndex = copy;
+        storageShared = false;
+        nameIndexScanned = false;
+        durationIndexScanned = false;
     }
 
     /**
-     * Checks if the given song is in the filtered songs.
+     * Copies the order indexes that an iterator may be scanning before a song change updates them.
+     * The iterator keeps scanning the old index, in which every song keeps the place it had,
+     * so the index is copied at most once per iteration however many songs change.
+     */
+    private void copyScannedIndexes() {
+        if (nameIndexScanned) {
+            nameIndex = new TreeSet<>(nameIndex);
+            nameIndexScanned = false;
+        }
+        if (durationIndexScanned) {
+            durationIndex = new TreeSet<>(durationIndex);
+            durationIndexScanned = false;
+        }
+    }
+
+    /**
+     * Records the slot of the given song in the bitmap of its genre.
      *
-     * @param x the song to check
-     * @return {@code true} if the song is not in, {@code false} otherwise
+     * @param song the song to index
+     * @param slot the slot of the song
      */
-    public boolean checkSong(Song x) {
-        for (int i = 0; i < filteredSongsSize; i++) {
-            if (x == filteredSongs.get(i)) {
-                return false;
+    private void indexGenre(Song song, int slot) {
+        if (song.getGenre() != null) {
+            genreIndex.get(song.getGenre()).set(slot);
+        }
+    }
+
+    /**
+     * Rebuilds the genre bitmaps from the slots.
+     */
+    private void rebuildGenreIndex() {
+        for (BitSet genreSlots : genreIndex.values()) {
+            genreSlots.clear();
+        }
+        for (int i = 0; i < slotCount; i++) {
+            if (slots[i] != null) {
+                indexGenre(slots[i], i);
             }
         }
+    }
+
+    /**
+     * Called by a song held by this playlist before its duration or genre changes, under the song lock if any.
+     * In the duration index, the song is replaced by a copy of its old state, which keeps its place
+     * until {@link #checkSongMutations()} puts the song back, so only the changed songs are indexed again
+     * and the song is still found while it changes. The clones of this playlist that share the song
+     * replace it by a copy of its current state first.
+     *
+     * @param song the song about to change
+     * @return true if the playlist still needs to be told about changes to the song, false otherwise
+     */
+    boolean songChanging(Song song) {
+        if (songLock == null) {
+            return startChange(song);
+        }
+        synchronized (songLock) {
+            return startChange(song);
+        }
+    }
+
+    /**
+     * Called by a song held by this playlist after its duration or genre has changed, under the song lock if any.
+     * Runs the song listener, if any, while the playlist still holds the song.
+     *
+     * @param song the song that has changed
+     */
+    void songChanged(Song song) {
+        if (songLock == null) {
+            finishChange(song);
+            return;
+        }
+        synchronized (songLock) {
+            finishChange(song);
+        }
+    }
+
+    /**
+     * Sets the lock that song changes take while they update the playlist, so that a song can change
+     * on one thread while other threads use the playlist under the same lock. Clones of the playlist
+     * do not inherit it.
+     *
+     * @param lock the lock to take, or null for none
+     */
+    void setSongLock(Object lock) {
+        this.songLock = lock;
+    }
+
+    /**
+     * Sets the action to run after a song held by the playlist has changed its duration or genre.
+     * Clones of the playlist do not inherit it.
+     *
+     * @param listener the action to run, or null for none
+     */
+    void setSongListener(Runnable listener) {
+        this.songListener = listener;
+    }
+
+    /**
+     * Takes the given song, about to change, out of the duration index in favour of a copy of its old state,
+     * and records that it is changing, so that {@link #checkSongMutations()} leaves it alone until it has.
+     *
+     * @param song the song about to change
+     * @return true if the playlist still needs to be told about changes to the song, false otherwise
+     */
+    private boolean startChange(Song song) {
+        notifyClones(song);
+        if (!holds(song)) {
+            return hasLiveClones();
+        }
+        if (!changedSongs.containsKey(song)) {
+            ensureOwnStorage();
+            copyScannedIndexes();
+            Song before = song.clone();
+            durationIndex.remove(song);
+            durationIndex.add(before);
+            changedSongs.put(song, before);
+        }
+        changingSongs.add(song);
         return true;
     }
 
+    /**
+     * Records that the given song has finished changing, and runs the song listener, if any,
+     * while the playlist still holds the song.
+     *
+     * @param song the song that has changed
+     */
+    private void finishChange(Song song) {
+        if (changingSongs.remove(song) && songListener != null) {
+            songListener.run();
+        }
+    }
+
+    /**
+     * Tells the live clones of this playlist, and their own clones, that the given song is about to change,
+     * so that those still sharing it detach from it.
+     *
+     * @param song the song about to change
+     */
+    private void notifyClones(Song song) {
+        if (clones == null) {
+            return;
+        }
+        for (WeakReference<Playlist> reference : clones) {
+            Playlist clone = reference.get();
+            if (clone != null) {
+                clone.detachSong(song);
+            }
+        }
+    }
+
+    /**
+     * Replaces the given song, about to change, by a copy of its current state if this playlist holds it
+     * without owning it, that is, only because it shares it with the playlist it was cloned from.
+     * Songs added to this playlist directly are kept, so changes made to them show here.
+     *
+     * @param song the song about to change
+     */
+    private void detachSong(Song song) {
+        notifyClones(song);
+        if (holds(song) && !song.isOwnedBy(this)) {
+            replaceByCopy(song);
+        }
+    }
+
+    /**
+     * Returns the song in the given slot, to be handed out to a caller. A song this playlist holds
+     * without owning it is replaced by a copy of its own first, so that a change made to the song
+     * handed out shows in this playlist only, and a change made through the original never reaches it.
+     * Each shared song is copied once, the first time it is handed out.
+     *
+     * @param slot the slot of the song
+     * @return the song, owned by this playlist
+     */
+    private Song handOut(int slot) {
+        Song song = slots[slot];
+        return song.isOwnedBy(this) ? song : replaceByCopy(song);
+    }
+
+    /**
+     * Replaces a song held by this playlist by a copy of its current state, owned by this playlist.
+     * The copy takes the place of the song in every index, so this costs as much as a single change.
+     *
+     * @param song the song to replace
+     * @return the copy
+     */
+    private Song replaceByCopy(Song song) {
+        ensureOwnStorage();
+        copyScannedIndexes();
+        int slot = slotIndex.remove(song);
+        Song copy = song.clone();
+        copy.addOwner(this);
+        slots[slot] = copy;
+        slotIndex.put(copy, slot);
+        nameIndex.remove(song);
+        nameIndex.add(copy);
+        durationIndex.remove(song);
+        durationIndex.add(copy);
+        return copy;
+    }
+
+    /**
+     * Checks whether the playlist holds the given song object itself, not just an equal song.
+     *
+     * @param song the song to check
+     * @return true if the song is stored in the playlist, false otherwise
+     */
+    private boolean holds(Song song) {
+        Integer slot = slotIndex.get(song);
+        return slot != null && slots[slot] == song;
+    }
+
+    /**
+     * Checks whether any clone of this playlist is still reachable.
+     *
+     * @return true if a clone is still alive, false otherwise
+     */
+    private boolean hasLiveClones() {
+        if (clones != null) {
+            for (WeakReference<Playlist> reference : clones) {
+                if (reference.get() != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a new clone of this playlist, dropping the clones that have been garbage collected
+     * whenever the list has doubled since it was last pruned.
+     *
+     * @param clone the new clone
+     */
+    private void addClone(Playlist clone) {
+        if (clones == null) {
+            clones = new ArrayList<>(1);
+        }
+        if (clones.size() >= clonesPruneAt) {
+            clones.removeIf(reference -> reference.get() == null);
+            clonesPruneAt = Math.max(INITIAL_CAPACITY, clones.size() * 2);
+        }
+        clones.add(new WeakReference<>(clone));
+    }
+
+    /**
+     * Puts the songs changed since the last check back into the duration and genre indexes,
+     * in place of the copies of their old state, and updates their exclusions.
+     * Songs still changing on another thread are left for a later check.
+     */
+    private void checkSongMutations() {
+        if (changedSongs.size() == changingSongs.size()) {
+            return;
+        }
+        ensureOwnStorage();
+        copyScannedIndexes();
+        for (Iterator<Map.Entry<Song, Song>> changes = changedSongs.entrySet().iterator(); changes.hasNext(); ) {
+            Map.Entry<Song, Song> change = changes.next();
+            Song song = change.getKey();
+            if (changingSongs.contains(song)) {
+                continue;
+            }
+            Song before = change.getValue();
+            int slot = slotIndex.get(song);
+            durationIndex.remove(before);
+            durationIndex.add(song);
+            if (before.getGenre() != null) {
+                genreIndex.get(before.getGenre()).clear(slot);
+            }
+            indexGenre(song, slot);
+            if (!exclusionsStale) {
+                excludedSlots.set(slot, isRejected(song));
+            }
+            changes.remove();
+        }
+    }
+
+    /**
+     * Sets the scanning order for the playlist.
+     * The order indexes are kept up to date on every change, so switching only records the order.
+     *
+     * @param order the scanning order
+     */
+    public void setScanningOrder(ScanningOrder order) {
+        this.scanningOrder = order;
+    }
+
+    /**
+     * Returns the scanning order of the playlist.
+     *
+     * @return the scanning order
+     */
+    ScanningOrder getScanningOrder() {
+        return scanningOrder;
+    }
 
     /**
      * Filters the songs in the playlist based on the artist.
+     * Replaces any previous artist filter; a null artist removes it.
      *
      * @param artist the artist to filter by
      */
     @Override
     public void filterArtist(String artist) {
         this.filterArtist = artist;
-        for (int i = 0; i < size; i++) {
-            Song current = songs.get(i);
-            if (artist != null) {
-                if (!artist.equals(current.getArtist())) {
-                    if (checkSong(current)) {
-                        filteredSongs.add(current);
-                        filteredSongsSize++;
-                    }
-                }
-            }
-        }
+        this.exclusionsStale = true;
     }
 
     /**
      * Filters the songs in the playlist based on the genre.
+     * Replaces any previous genre filter; a null genre removes it.
      *
      * @param genre the genre to filter by
      */
     @Override
-    public void filterGenre(Enum genre) {
-        this.filterGenre = genre;
-        for (int i = 0; i < size; i++) {
-            Song current = songs.get(i);
-            if (!genre.equals(current.getGenre())) {
-                if (genre != null) {
-                    if (checkSong(current)) {
-                        filteredSongs.add(current);
-                        filteredSongsSize++;
-                    }
-                }
-            }
+    public void filterGenre(Enum<?> genre) {
+        if (genre == null) {
+            filterGenres(null);
+        } else if (genre instanceof Song.Genre) {
+            filterGenres(EnumSet.of((Song.Genre) genre));
+        } else {
+            filterGenres(EnumSet.noneOf(Song.Genre.class));
         }
     }
 
+    /**
+     * Filters the songs in the playlist to those of any of the given genres.
+     * Replaces any previous genre filter; a null set removes it.
+     * The filter is resolved as a union of the per-genre bitmaps.
+     *
+     * @param genres the genres to keep
+     */
+    @Override
+    public void filterGenres(EnumSet<Song.Genre> genres) {
+        this.filterGenres = genres == null ? null : EnumSet.copyOf(genres);
+        this.exclusionsStale = true;
+    }
+
     /**
      * Filters the songs in the playlist based on the duration.
+     * Replaces any previous duration filter.
      *
      * @param duration the duration to filter by
      */
     @Override
     public void filterDuration(int duration) {
-        this.filterDuration = duration;
-        for (int i = 0; i < size; i++) {
-            Song current = songs.get(i);
-            if (duration < current.getDuration()) {
-                if (checkSong(current)) {
-                    filteredSongs.add(current);
-                    filteredSongsSize++;
+        filterDuration(Integer.MIN_VALUE, duration);
+    }
+
+    /**
+     * Filters the songs in the playlist to those whose duration is within the given range.
+     * Replaces any previous duration filter. The range is looked up in the duration index.
+     *
+     * @param minDuration the minimum duration to filter by, inclusive
+     * @param maxDuration the maximum duration to filter by, inclusive
+     */
+    @Override
+    public void filterDuration(int minDuration, int maxDuration) {
+        this.filterMinDuration = minDuration;
+        this.filterDuration = maxDuration;
+        this.durationFiltered = true;
+        this.exclusionsStale = true;
+    }
+
+    /**
+     * Returns the songs whose duration is within the range of the duration filter,
+     * as a view of the duration index.
+     *
+     * @return the songs in the duration range
+     */
+    private SortedSet<Song> durationRange() {
+        if (filterMinDuration > filterDuration) {
+            return Collections.emptySortedSet();
+        }
+        Song from = durationProbe(filterMinDuration);
+        if (filterDuration == Integer.MAX_VALUE) {
+            return durationIndex.tailSet(from, true);
+        }
+        return durationIndex.subSet(from, true, durationProbe(filterDuration + 1), false);
+    }
+
+    /**
+     * Creates a song that sorts before every song of the given duration in the duration index.
+     *
+     * @param duration the duration of the probe
+     * @return the probe song
+     */
+    private static Song durationProbe(int duration) {
+        return new Song("", "", null, duration);
+    }
+
+    /**
+     * Checks whether the given song is rejected by any of the active filters.
+     *
+     * @param song the song to check
+     * @return true if the song is filtered out, false otherwise
+     */
+    private boolean isRejected(Song song) {
+        return (filterArtist != null && !filterArtist.equals(song.getArtist()))
+                || (filterGenres != null && !filterGenres.contains(song.getGenre()))
+                || (durationFiltered
+                    && (song.getDuration() < filterMinDuration || filterDuration < song.getDuration()));
+    }
+
+    /**
+     * Checks whether the playlist shows the given song, that is, whether none of the active filters rejects it.
+     *
+     * @param song the song to check
+     * @return true if the song passes the filters, false otherwise
+     */
+    boolean shows(Song song) {
+        return !isRejected(song);
+    }
+
+    /**
+     * Checks whether any filter is active.
+     *
+     * @return true if some songs may be filtered out, false otherwise
+     */
+    boolean isFiltered() {
+        return filterArtist != null || filterGenres != null || durationFiltered;
+    }
+
+    /**
+     * Recomputes the excluded slots after the filters have changed.
+     * The duration filter is resolved from a range of the duration index and the genre filter
+     * word by word from the genre bitmaps; only the songs both keep are checked against the artist filter.
+     */
+    private void refreshExclusions() {
+        if (!exclusionsStale) {
+            return;
+        }
+        excludedSlots.clear();
+        BitSet kept = null;
+        if (durationFiltered) {
+            kept = new BitSet(slotCount);
+            for (Song song : durationRange()) {
+                kept.set(slotIndex.get(song));
+            }
+        }
+        if (filterGenres != null) {
+            BitSet genreKept = new BitSet(slotCount);
+            for (Song.Genre genre : filterGenres) {
+                genreKept.or(genreIndex.get(genre));
+            }
+            if (kept == null) {
+                kept = genreKept;
+            } else {
+                kept.and(genreKept);
+            }
+        }
+        if (kept != null) {
+            excludedSlots.set(0, slotCount);
+            excludedSlots.andNot(kept);
+        }
+        if (filterArtist != null) {
+            for (int i = excludedSlots.nextClearBit(0); i < slotCount; i = excludedSlots.nextClearBit(i + 1)) {
+                Song current = slots[i];
+                if (current != null && isRejected(current)) {
+                    excludedSlots.set(i);
                 }
             }
         }
+        exclusionsStale = false;
     }
+
     /**
-     * Creates and returns a copy of the playlist.
+     * Creates and returns a copy of the playlist in constant time.
+     * The copy shares the slots and indexes with the original until either of them adds or removes a song.
+     * It also shares the songs, which still belong to the original, until it hands them out: the copy
+     * then hands out a copy of each song of its own, made the first time, and before a shared song
+     * changes through the original, the copy replaces it by a copy of its state. Changes made through
+     * either playlist therefore never reach the other, as if every song had been copied up front.
+     * Songs added to the copy afterwards belong to it, and their changes show in the copy.
+     * The copy has no filters.
      *
      * @return a new instance of the Playlist class with the same songs as the original
      */
     @Override
     public Playlist clone() {
-        Playlist temp = new Playlist();
-        temp.songs = new ArrayList<>(this.songs.size());
-        for (Song song : this.songs) {
-            if (song != null) {
-                temp.songs.add(song.clone());
-            } else {
-                temp.songs.add(null);
-            }
+        checkSongMutations();
+        Playlist temp;
+        try {
+            temp = (Playlist) super.clone();
+        } catch (CloneNotSupportedException e) {
+            return null;
         }
+        storageShared = true;
+        temp.storageShared = true;
+        temp.changedSongs = new IdentityHashMap<>();
+        temp.changingSongs = Collections.newSetFromMap(new IdentityHashMap<>());
+        temp.clones = null;
+        temp.clonesPruneAt = 0;
+        temp.songListener = null;
+        temp.songLock = null;
+        addClone(temp);
+        temp.excludedSlots = new BitSet();
+        temp.exclusionsStale = false;
+        temp.filterArtist = null;
+        temp.filterGenres = null;
+        temp.filterMinDuration = Integer.MIN_VALUE;
+        temp.filterDuration = -1;
+        temp.durationFiltered = false;
         return temp;
     }
     /**
      * Checks whether the playlist is equal to the given object.
+     * Playlists whose song hashes differ are rejected without comparing their songs.
      *
      * @param other the object to compare with the playlist
      * @return true if the playlist is equal to the given object, false otherwise
@@ -204,14 +732,9 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
             return false;
         }
         Playlist otherPlaylist = (Playlist) other;
-        if (songs.size() != otherPlaylist.songs.size()) {
+        if (size != otherPlaylist.size || songsHash != otherPlaylist.songsHash) {
             return false;
         }
-        for (Song song : songs) {
-            if (!otherPlaylist.songs.contains(song)) {
-                return false;
-            }
-        }
         if (filterArtist == null) {
             if (otherPlaylist.filterArtist != null) {
                 return false;
@@ -219,14 +742,22 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
         } else if (!filterArtist.equals(otherPlaylist.filterArtist)) {
             return false;
         }
-        if (filterGenre == null) {
-            if (otherPlaylist.filterGenre != null) {
+        if (filterGenres == null) {
+            if (otherPlaylist.filterGenres != null) {
                 return false;
             }
-        } else if (!filterGenre.equals(otherPlaylist.filterGenre)) {
+        } else if (!filterGenres.equals(otherPlaylist.filterGenres)) {
+            return false;
+        }
+        if (filterMinDuration != otherPlaylist.filterMinDuration || filterDuration != otherPlaylist.filterDuration) {
             return false;
         }
-        return filterDuration == otherPlaylist.filterDuration;
+        for (int i = 0; i < slotCount; i++) {
+            if (slots[i] != null && !otherPlaylist.slotIndex.containsKey(slots[i])) {
+                return false;
+            }
+        }
+        return true;
     }
     /**
      * Returns a string representation of the playlist.
@@ -236,17 +767,48 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
 
     @Override
     public String toString() {
-        String result = "[";
-        int size = songs.size();
-        for (int i = 0; i < size; i++) {
-            Song song = songs.get(i);
-            result += "(" + song.toString() + ")";
-            if (i != size - 1) {
-                result += ", ";
+        StringBuilder result = new StringBuilder(size * 48 + 2);
+        try {
+            writeTo(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes the string representation of the playlist to the given output, one song at a time,
+     * in the current scanning order and ignoring the filters.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing to the output fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append('[');
+        checkSongMutations();
+        Iterator<Song> songs = new PlaylistIterator(false);
+        while (songs.hasNext()) {
+            out.append('(');
+            songs.next().writeTo(out);
+            out.append(')');
+            if (songs.hasNext()) {
+                out.append(", ");
             }
         }
-        result += "]";
-        return result;
+        out.append(']');
+    }
+
+    /**
+     * Writes the string representation of the playlist to the given writer through a buffer,
+     * and flushes it when done.
+     *
+     * @param writer the writer to write to
+     * @throws IOException if writing to the writer fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        Writer out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        writeTo((Appendable) out);
+        out.flush();
     }
     /**
      * Returns an iterator over the songs in the playlist.
@@ -255,45 +817,169 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
      */
     @Override
     public Iterator<Song> iterator() {
-        return new PlaylistIterator();
+        checkSongMutations();
+        refreshExclusions();
+        return new PlaylistIterator(true);
+    }
+
+    /**
+     * Returns the song stored in the playlist that is equal to the given one.
+     *
+     * @param song the song to look up
+     * @return the stored song, or null if the playlist does not hold it
+     */
+    Song storedSong(Song song) {
+        Integer slot = slotIndex.get(song);
+        return slot == null ? null : slots[slot];
+    }
+
+    /**
+     * Returns all songs of the playlist in the given order, ignoring the filters and the current scanning order.
+     *
+     * @param order the order of the songs
+     * @return the songs of the playlist
+     */
+    Song[] songs(ScanningOrder order) {
+        checkSongMutations();
+        switch (order) {
+            case NAME:
+                return nameIndex.toArray(new Song[0]);
+            case DURATION:
+                return durationIndex.toArray(new Song[0]);
+            default:
+                Song[] songs = new Song[size];
+                int count = 0;
+                for (int i = 0; i < slotCount; i++) {
+                    if (slots[i] != null) {
+                        songs[count++] = slots[i];
+                    }
+                }
+                return songs;
+        }
+    }
+
+    /**
+     * Returns a spliterator over the songs in the playlist, in the current scanning order and skipping
+     * the songs rejected by the filters. The songs are collected into an array when the spliterator is
+     * created, so it splits evenly for parallel streams and is not affected by later changes to the playlist.
+     *
+     * @return a spliterator over the songs in the playlist
+     */
+    @Override
+    public Spliterator<Song> spliterator() {
+        return Spliterators.spliterator(shownSongs(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Collects the songs shown by the playlist, in the current scanning order and skipping
+     * the songs rejected by the filters, into a new array.
+     *
+     * @return the shown songs
+     */
+    Song[] shownSongs() {
+        Song[] songs = new Song[size];
+        int count = 0;
+        for (Iterator<Song> songIterator = iterator(); songIterator.hasNext(); ) {
+            songs[count++] = songIterator.next();
+        }
+        return count == songs.length ? songs : Arrays.copyOf(songs, count);
     }
 
     /**
      * Iterator implementation for iterating over the songs in the playlist.
+     * Excluded songs are skipped without modifying the playlist, so several iterators can scan it at once.
+     * Songs may be changed during the iteration: an iterator in name or duration order keeps scanning
+     * the index as it was, so every song is visited once, and the changed songs take their new place
+     * in the order from the next iteration on. Adding or removing a song during such an iteration
+     * makes it fail with a {@link ConcurrentModificationException}.
      */
     private class PlaylistIterator implements Iterator<Song> {
+        private final boolean external;
+        private final Iterator<Song> sortedSongs;
+        private final int expectedModCount;
         private int currentIndex = 0;
+        private Song nextSong;
+
+        /**
+         * Constructs a PlaylistIterator over the current scanning order.
+         *
+         * @param external whether the iterator is returned to a caller, in which case it skips
+         *                 the songs rejected by the filters
+         */
+        PlaylistIterator(boolean external) {
+            this.external = external;
+            this.expectedModCount = modCount;
+            switch (scanningOrder) {
+                case NAME:
+                    this.sortedSongs = nameIndex.iterator();
+                    nameIndexScanned = true;
+                    break;
+                case DURATION:
+                    this.sortedSongs = durationIndex.iterator();
+                    durationIndexScanned = true;
+                    break;
+                default:
+                    // Adding order is scanned directly over the slots
+                    this.sortedSongs = null;
+                    break;
+            }
+        }
 
         /**
          * Checks if there are more songs to iterate.
          *
          * @return true if there are more songs, false otherwise.
+         * @throws ConcurrentModificationException if a song was added or removed during a scan in name or duration order
          */
         @Override
         public boolean hasNext() {
-            for (int i = 0; i < filteredSongsSize; i++) {
-                if (currentIndex < size && songs.get(currentIndex) == filteredSongs.get(i)) {
-                    currentIndex++;
-                    filteredSongs.remove(songs.get(currentIndex-1));
-                    filteredSongsSize--;
-                    return hasNext();
+            if (nextSong != null) {
+                return true;
+            }
+            if (sortedSongs == null) {
+                while (currentIndex < slotCount) {
+                    int slot = external ? excludedSlots.nextClearBit(currentIndex) : currentIndex;
+                    currentIndex = slot + 1;
+                    if (slot < slotCount && slots[slot] != null) {
+                        nextSong = external ? handOut(slot) : slots[slot];
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (sortedSongs.hasNext()) {
+                int slot = slotIndex.get(sortedSongs.next());
+                if (!external || !excludedSlots.get(slot)) {
+                    // The slot holds the current copy of a song that a clone has detached since
+                    nextSong = external ? handOut(slot) : slots[slot];
+                    return true;
                 }
             }
-            return currentIndex < size;
+            return false;
         }
         /**
          * Returns the next song in the iteration.
          *
          * @return the next song
+         * @throws NoSuchElementException if there are no more songs to iterate over
          */
         @Override
         public Song next() {
-            currentIndex++;
-            return songs.get(currentIndex - 1);
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Song song = nextSong;
+            nextSong = null;
+            return song;
         }
     }
     /**
      * Returns the hash code value for the playlist.
+     * The songs contribute the sum of their hash codes, which is kept up to date by addSong and removeSong.
      *
      * @return the hash code value for the playlist
      */
@@ -302,21 +988,7 @@ public class Playlist implements OrderSongIterable, FilteredSongIterable, Clonea
     public int hashCode() {
         int result = 0;
         result += Objects.hashCode(filterArtist);
-        result += calculateSongHashCode(songs);
+        result += songsHash;
         return result;
     }
-    /**
-     * Calculates the hash code value for a list of songs.
-     *
-     * @param songs the list of songs
-     * @return the calculated hash code value
-     */
-
-    private int calculateSongHashCode(List<Song> songs) {
-        int sum = 0;
-        for (Song song : songs) {
-            sum += song.hashCode();
-        }
-        return sum;
-    }
 }
\ No newline at end of file
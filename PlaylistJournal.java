@@ -0,0 +1,584 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persists a playlist as an append-only journal of its changes, so that the cost of saving a change
+ * is proportional to the change rather than to the playlist.
+ * A directory holds numbered generations: {@code snapshot-N.bin} is the playlist, in the format of
+ * {@link MappedPlaylist}, at the start of {@code journal-N.log}, which records every later change.
+ * Generation 0 has no snapshot and starts from an empty playlist.
+ * <p>
+ * Changes are buffered and written as a group: with one write and one sync per {@link #commit()},
+ * which happens on its own once the group is full. A change is durable once its group is committed.
+ * Every record carries a checksum, so the torn record of a crash in the middle of a write is detected
+ * and dropped when the directory is opened again, after replaying the rest of the journal.
+ * A commit that fails keeps its changes pending, and the next commit first cuts the journal back
+ * to the end of the last committed group.
+ * <p>
+ * {@link #compact()} starts a new journal right away and folds the previous generation into a new
+ * snapshot in the background, without touching the live playlist; the old files are then deleted.
+ * Opening the directory deletes what a crash during a compaction may have left behind.
+ * The playlist must only be changed through the journal.
+ */
+public class PlaylistJournal implements AutoCloseable {
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte SET_DURATION = 3;
+    private static final byte SET_GENRE = 4;
+    private static final int NULL_LENGTH = -1;
+    private static final int INITIAL_BUFFER_BYTES = 4096;
+
+    private final Path directory;
+    private final int groupSize;
+    private final Playlist playlist;
+    private final ExecutorService compactor;
+    private FileChannel journal;
+    private long committedBytes;
+    private int generation;
+    private ByteBuffer pending;
+    private int pendingRecords;
+
+    /**
+     * Constructs a PlaylistJournal appending to the journal of the given generation.
+     *
+     * @param directory  the directory of the journal
+     * @param groupSize  the number of changes committed together
+     * @param playlist   the recovered playlist
+     * @param generation the current generation
+     * @param journal    the open journal of the current generation, positioned at its end
+     * @throws IOException if the position of the journal cannot be read
+     */
+    private PlaylistJournal(Path directory, int groupSize, Playlist playlist, int generation, FileChannel journal)
+            throws IOException {
+        this.directory = directory;
+        this.groupSize = groupSize;
+        this.playlist = playlist;
+        this.generation = generation;
+        this.journal = journal;
+        this.committedBytes = journal.position();
+        this.pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+        this.pendingRecords = 0;
+        this.compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "playlist-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the journal in the given directory, creating it if needed, and recovers its playlist
+     * from the latest snapshot and the journals written since. The temporary files of an unfinished
+     * compaction, and the files of the generations older than the latest snapshot, are deleted.
+     *
+     * @param directory the directory of the journal
+     * @param groupSize the number of changes committed together, at least 1
+     * @return the open journal
+     * @throws IOException              if the directory cannot be read or written
+     * @throws IllegalArgumentException if the group size is smaller than 1
+     */
+    public static PlaylistJournal open(Path directory, int groupSize) throws IOException {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("Invalid group size: " + groupSize);
+        }
+        Files.createDirectories(directory);
+        int snapshot = 0;
+        int latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("snapshot-") && name.endsWith(".bin")) {
+                    snapshot = Math.max(snapshot, generationOf(name));
+                } else if (name.startsWith("journal-") && name.endsWith(".log")) {
+                    latest = Math.max(latest, generationOf(name));
+                }
+            }
+        }
+        latest = Math.max(latest, snapshot);
+        deleteStaleFiles(directory, snapshot);
+        Playlist playlist = snapshot == 0 ? new Playlist() : loadSnapshot(directory, snapshot);
+        for (int g = snapshot; g < latest; g++) {
+            replay(journalFile(directory, g), playlist);
+        }
+        Path current = journalFile(directory, latest);
+        boolean created = !Files.exists(current);
+        long valid = created ? 0 : replay(current, playlist);
+        FileChannel journal = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            journal.truncate(valid);
+            journal.position(valid);
+            if (created) {
+                syncDirectory(directory);
+            }
+            return new PlaylistJournal(directory, groupSize, playlist, latest, journal);
+        } catch (IOException e) {
+            journal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the recovered playlist. It must only be read; changes must go through the journal.
+     *
+     * @return the playlist
+     */
+    public Playlist playlist() {
+        return playlist;
+    }
+
+    /**
+     * Adds a song to the playlist and records it.
+     *
+     * @param song the song to add
+     * @throws SongAlreadyExistsException if the song already exists in the playlist
+     * @throws IOException                if committing a full group fails
+     */
+    public synchronized void addSong(Song song) throws IOException {
+        playlist.addSong(song);
+        int start = startRecord(ADD, song, 1 + Integer.BYTES);
+        pending.put(ordinalOf(song.getGenre())).putInt(song.getDuration());
+        endRecord(start);
+    }
+
+    /**
+     * Removes a song from the playlist and records it.
+     *
+     * @param song the song to remove
+     * @return true if the song was removed, false if the playlist does not hold it
+     * @throws IOException if committing a full group fails
+     */
+    public synchronized boolean removeSong(Song song) throws IOException {
+        if (!playlist.removeSong(song)) {
+            return false;
+        }
+        endRecord(startRecord(REMOVE, song, 0));
+        return true;
+    }
+
+    /**
+     * Sets the duration of a song of the playlist and records it.
+     *
+     * @param song     the song to change
+     * @param duration the new duration in seconds
+     * @return true if the song was changed, false if the playlist does not hold it
+     * @throws IOException if committing a full group fails
+     */
+    public synchronized boolean setDuration(Song song, int duration) throws IOException {
+        Song stored = playlist.storedSong(song);
+        if (stored == null) {
+            return false;
+        }
+        stored.setDuration(duration);
+        int start = startRecord(SET_DURATION, song, Integer.BYTES);
+        pending.putInt(duration);
+        endRecord(start);
+        return true;
+    }
+
+    /**
+     * Sets the genre of a song of the playlist and records it.
+     *
+     * @param song  the song to change
+     * @param genre the new genre
+     * @return true if the song was changed, false if the playlist does not hold it
+     * @throws IOException if committing a full group fails
+     */
+    public synchronized boolean setGenre(Song song, Song.Genre genre) throws IOException {
+        Song stored = playlist.storedSong(song);
+        if (stored == null) {
+            return false;
+        }
+        stored.setGenre(genre);
+        int start = startRecord(SET_GENRE, song, 1);
+        pending.put(ordinalOf(genre));
+        endRecord(start);
+        return true;
+    }
+
+    /**
+     * Writes the pending changes to the journal with a single write and syncs it to the disk.
+     * If this fails, the changes stay pending and the part of the group already written is cut off
+     * by the next commit, so that a retry does not append after a torn record.
+     *
+     * @throws IOException if writing or syncing fails
+     */
+    public synchronized void commit() throws IOException {
+        if (pendingRecords == 0) {
+            return;
+        }
+        if (journal.position() != committedBytes) {
+            journal.truncate(committedBytes);
+            journal.position(committedBytes);
+        }
+        pending.flip();
+        boolean committed = false;
+        try {
+            while (pending.hasRemaining()) {
+                journal.write(pending);
+            }
+            journal.force(false);
+            committed = true;
+        } finally {
+            if (committed) {
+                pending.clear();
+                pendingRecords = 0;
+                committedBytes = journal.position();
+            } else {
+                pending.position(pending.limit());
+                pending.limit(pending.capacity());
+            }
+        }
+    }
+
+    /**
+     * Commits the pending changes, starts a new journal, and folds the previous snapshot and journal
+     * into a new snapshot in the background. Compactions run one at a time, in the order they were started.
+     *
+     * @return the background compaction, which completes once the new snapshot is written
+     * @throws IOException if committing or starting the new journal fails
+     */
+    public synchronized Future<?> compact() throws IOException {
+        commit();
+        int folded = generation;
+        FileChannel next = FileChannel.open(journalFile(directory, folded + 1),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            syncDirectory(directory);
+        } catch (IOException e) {
+            next.close();
+            throw e;
+        }
+        journal.close();
+        journal = next;
+        committedBytes = 0;
+        generation = folded + 1;
+        return compactor.submit(() -> {
+            fold(folded);
+            return null;
+        });
+    }
+
+    /**
+     * Commits the pending changes, waits for the running compactions and closes the journal.
+     *
+     * @throws IOException if committing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            journal.close();
+        }
+    }
+
+    /**
+     * Writes the snapshot of the given generation with the changes of its journal as the snapshot of the
+     * next generation, then deletes the files of the given generation. The directory is synced after the
+     * new snapshot is renamed into place, so the old files are only deleted once the rename is durable.
+     *
+     * @param folded the generation to fold
+     * @throws IOException if reading or writing the files fails
+     */
+    private void fold(int folded) throws IOException {
+        Playlist folding = folded == 0 ? new Playlist() : loadSnapshot(directory, folded);
+        replay(journalFile(directory, folded), folding);
+        Path snapshot = snapshotFile(directory, folded + 1);
+        Path written = directory.resolve(snapshot.getFileName() + ".tmp");
+        MappedPlaylist.write(folding, written);
+        Files.move(written, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory);
+        Files.deleteIfExists(snapshotFile(directory, folded));
+        Files.deleteIfExists(journalFile(directory, folded));
+    }
+
+    /**
+     * Deletes the temporary files of an unfinished compaction, and the snapshots and journals of the
+     * generations older than the given snapshot, which a crash may have left after the snapshot was renamed.
+     *
+     * @param directory the directory of the journal
+     * @param snapshot  the generation of the latest snapshot
+     * @throws IOException if the directory cannot be read or a file cannot be deleted
+     */
+    private static void deleteStaleFiles(Path directory, int snapshot) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean generationFile = (name.startsWith("snapshot-") && name.endsWith(".bin"))
+                        || (name.startsWith("journal-") && name.endsWith(".log"));
+                if ((name.startsWith("snapshot-") && name.endsWith(".bin.tmp"))
+                        || (generationFile && generationOf(name) < snapshot)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Syncs the given directory to the disk, so that the files created, renamed or deleted in it so far
+     * survive a crash.
+     *
+     * @param directory the directory to sync
+     * @throws IOException if the directory cannot be synced
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Starts a record of the given type about the given song in the pending buffer,
+     * making room for the whole record first. The caller then writes the rest of the payload.
+     *
+     * @param type       the type of the record
+     * @param song       the song, identified by its name and artist
+     * @param extraBytes the number of bytes of the payload after the name and artist
+     * @return the offset of the record in the pending buffer
+     */
+    private int startRecord(byte type, Song song, int extraBytes) {
+        byte[] name = bytesOf(song.getName());
+        byte[] artist = bytesOf(song.getArtist());
+        int length = 1 + stringBytes(name) + stringBytes(artist) + extraBytes;
+        ensureRoom(Integer.BYTES + length + Integer.BYTES);
+        int start = pending.position();
+        pending.putInt(length).put(type);
+        putString(name);
+        putString(artist);
+        return start;
+    }
+
+    /**
+     * Finishes the record started at the given offset by writing its checksum,
+     * and commits the group if it is full.
+     *
+     * @param start the offset of the record in the pending buffer
+     * @throws IOException if committing fails
+     */
+    private void endRecord(int start) throws IOException {
+        CRC32 checksum = new CRC32();
+        checksum.update(pending.array(), start + Integer.BYTES, pending.getInt(start));
+        pending.putInt((int) checksum.getValue());
+        pendingRecords++;
+        if (pendingRecords >= groupSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Returns the UTF-8 bytes of a string.
+     *
+     * @param string the string, or null
+     * @return the bytes, or null
+     */
+    private static byte[] bytesOf(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes {@link #putString(byte[])} writes for the given bytes.
+     *
+     * @param bytes the bytes of a string, or null
+     * @return the number of bytes written
+     */
+    private static int stringBytes(byte[] bytes) {
+        return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    /**
+     * Writes the bytes of a string to the pending buffer, after their length.
+     *
+     * @param bytes the bytes of a string, or null
+     */
+    private void putString(byte[] bytes) {
+        if (bytes == null) {
+            pending.putInt(NULL_LENGTH);
+        } else {
+            pending.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Doubles the pending buffer until the given number of bytes fit after its position.
+     *
+     * @param bytes the number of bytes needed
+     */
+    private void ensureRoom(int bytes) {
+        if (pending.remaining() >= bytes) {
+            return;
+        }
+        int capacity = pending.capacity();
+        while (capacity - pending.position() < bytes) {
+            capacity *= 2;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    /**
+     * Applies the complete records of a journal file to a playlist.
+     *
+     * @param file     the journal file, which may be missing
+     * @param playlist the playlist to change
+     * @return the length of the valid part of the file, before any torn or corrupt record
+     * @throws IOException if the file cannot be read
+     */
+    private static long replay(Path file, Playlist playlist) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 checksum = new CRC32();
+        while (in.remaining() >= Integer.BYTES) {
+            int start = in.position();
+            int length = in.getInt();
+            if (length <= 0 || length > in.remaining() - Integer.BYTES) {
+                return start;
+            }
+            checksum.reset();
+            checksum.update(in.array(), in.position(), length);
+            if (in.getInt(in.position() + length) != (int) checksum.getValue()) {
+                return start;
+            }
+            ByteBuffer record = in.slice(in.position(), length);
+            apply(record, playlist);
+            in.position(in.position() + length + Integer.BYTES);
+        }
+        return in.position();
+    }
+
+    /**
+     * Applies a single record to a playlist.
+     *
+     * @param record   the record, from its type to the end of its payload
+     * @param playlist the playlist to change
+     */
+    private static void apply(ByteBuffer record, Playlist playlist) {
+        byte type = record.get();
+        String name = getString(record);
+        String artist = getString(record);
+        Song key = new Song(name, artist, null, 0);
+        switch (type) {
+            case ADD:
+                Song.Genre genre = genreOf(record.get());
+                playlist.tryAddSong(new Song(name, artist, genre, record.getInt()));
+                break;
+            case REMOVE:
+                playlist.removeSong(key);
+                break;
+            case SET_DURATION:
+                Song lengthened = playlist.storedSong(key);
+                if (lengthened != null) {
+                    lengthened.setDuration(record.getInt());
+                }
+                break;
+            case SET_GENRE:
+                Song regenred = playlist.storedSong(key);
+                if (regenred != null) {
+                    regenred.setGenre(genreOf(record.get()));
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #putString(byte[])}.
+     *
+     * @param record the record to read from
+     * @return the string, or null
+     */
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the ordinal of the given genre.
+     *
+     * @param genre the genre, or null
+     * @return the ordinal, or -1 for null
+     */
+    private static byte ordinalOf(Song.Genre genre) {
+        return genre == null ? -1 : (byte) genre.ordinal();
+    }
+
+    /**
+     * Returns the genre with the given ordinal.
+     *
+     * @param ordinal the ordinal, or -1 for null
+     * @return the genre, or null
+     */
+    private static Song.Genre genreOf(byte ordinal) {
+        return ordinal < 0 ? null : Song.Genre.values()[ordinal];
+    }
+
+    /**
+     * Loads the snapshot of the given generation into a new playlist.
+     *
+     * @param directory  the directory of the journal
+     * @param generation the generation of the snapshot
+     * @return the playlist
+     * @throws IOException if the snapshot cannot be read
+     */
+    private static Playlist loadSnapshot(Path directory, int generation) throws IOException {
+        return MappedPlaylist.open(snapshotFile(directory, generation)).toPlaylist();
+    }
+
+    /**
+     * Returns the generation in the name of a snapshot or journal file.
+     *
+     * @param name the name of the file
+     * @return the generation
+     */
+    private static int generationOf(String name) {
+        return Integer.parseInt(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+    }
+
+    /**
+     * Returns the snapshot file of the given generation.
+     *
+     * @param directory  the directory of the journal
+     * @param generation the generation
+     * @return the snapshot file
+     */
+    private static Path snapshotFile(Path directory, int generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    /**
+     * Returns the journal file of the given generation.
+     *
+     * @param directory  the directory of the journal
+     * @param generation the generation
+     * @return the journal file
+     */
+    private static Path journalFile(Path directory, int generation) {
+        return directory.resolve("journal-" + generation + ".log");
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the recovery of a {@link PlaylistJournal} from the files a crash can leave behind.
+ */
+class PlaylistJournalTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * A torn record at the end of the journal is dropped, the records before it are replayed,
+     * and later changes are appended after the last valid record.
+     *
+     * @throws IOException if the journal cannot be read or written
+     */
+    @Test
+    void replaysUpToTruncatedTail() throws IOException {
+        try (PlaylistJournal journal = PlaylistJournal.open(directory, 1)) {
+            journal.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+            journal.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+            journal.addSong(new Song("Le Freak", "Chic", Song.Genre.DISCO, 307));
+        }
+        Path log = directory.resolve("journal-0.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (PlaylistJournal journal = PlaylistJournal.open(directory, 1)) {
+            assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 2:55)]",
+                    journal.playlist().toString());
+            journal.addSong(new Song("Y.M.C.A.", "Village People", Song.Genre.DISCO, 199));
+        }
+        try (PlaylistJournal journal = PlaylistJournal.open(directory, 1)) {
+            assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 2:55), "
+                    + "(Y.M.C.A., Village People, DISCO, 3:19)]", journal.playlist().toString());
+        }
+    }
+
+    /**
+     * A crash after the new snapshot is renamed into place, but before the old generation is deleted,
+     * leaves the old journal and a temporary file behind; opening the directory recovers from the new
+     * snapshot and deletes them.
+     *
+     * @throws Exception if the journal cannot be read or written, or the compaction fails
+     */
+    @Test
+    void recoversFromCrashBetweenRenameAndDelete() throws Exception {
+        Song easterEgg = new Song("Easter Egg", "Dvir ft. Gal", Song.Genre.HIP_HOP, 230);
+        try (PlaylistJournal journal = PlaylistJournal.open(directory, 2)) {
+            journal.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+            journal.addSong(easterEgg);
+            journal.setDuration(easterEgg, 437);
+        }
+        byte[] oldJournal = Files.readAllBytes(directory.resolve("journal-0.log"));
+        try (PlaylistJournal journal = PlaylistJournal.open(directory, 2)) {
+            journal.compact().get();
+            journal.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        }
+        Files.write(directory.resolve("journal-0.log"), oldJournal);
+        Files.write(directory.resolve("snapshot-2.bin.tmp"), new byte[] {1, 2, 3});
+
+        try (PlaylistJournal journal = PlaylistJournal.open(directory, 2)) {
+            assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Easter Egg, Dvir ft. Gal, HIP_HOP, 7:17), "
+                    + "(Take Five, Dave Brubeck, JAZZ, 2:55)]", journal.playlist().toString());
+        }
+        assertFalse(Files.exists(directory.resolve("journal-0.log")));
+        assertFalse(Files.exists(directory.resolve("snapshot-2.bin.tmp")));
+        assertTrue(Files.exists(directory.resolve("snapshot-1.bin")));
+    }
+}
@@ -0,0 +1,233 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@link Playlist} stays consistent while its songs change, that its clones stay independent of it,
+ * and that it streams its songs in scanning order.
+ */
+class PlaylistTest {
+    /**
+     * Songs changed while the playlist is scanned in duration order are visited once, and the next scan
+     * sees them in their new order.
+     */
+    @Test
+    void songsChangedDuringIterationAreVisitedOnce() {
+        Playlist playlist = new Playlist();
+        playlist.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        playlist.addSong(new Song("Le Freak", "Chic", Song.Genre.DISCO, 307));
+        playlist.setScanningOrder(ScanningOrder.DURATION);
+
+        List<String> visited = new ArrayList<>();
+        for (Song song : playlist) {
+            visited.add(song.getName());
+            song.setDuration(400 - song.getDuration());
+        }
+
+        assertEquals(List.of("Unicorn", "Take Five", "Le Freak"), visited);
+        assertEquals("[(Le Freak, Chic, DISCO, 1:33), (Take Five, Dave Brubeck, JAZZ, 3:45), "
+                + "(Unicorn, Noa Kirel, POP, 3:49)]", playlist.toString());
+    }
+
+    /**
+     * A song changed before the scan reaches it is still visited, at the place it had, even when
+     * the change moves it before the songs already visited.
+     */
+    @Test
+    void songsChangedAheadOfTheIteratorAreStillVisited() {
+        Playlist playlist = new Playlist();
+        playlist.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        Song leFreak = new Song("Le Freak", "Chic", Song.Genre.DISCO, 307);
+        playlist.addSong(leFreak);
+        playlist.setScanningOrder(ScanningOrder.DURATION);
+
+        List<String> visited = new ArrayList<>();
+        for (Song song : playlist) {
+            visited.add(song.getName());
+            if (visited.size() == 2) {
+                leFreak.setDuration(60);
+                assertEquals("[(Le Freak, Chic, DISCO, 1:00), (Unicorn, Noa Kirel, POP, 2:51), "
+                        + "(Take Five, Dave Brubeck, JAZZ, 2:55)]", playlist.toString());
+            }
+        }
+
+        assertEquals(List.of("Unicorn", "Take Five", "Le Freak"), visited);
+    }
+
+    /**
+     * Adding or removing a song while the playlist is scanned in name order fails fast,
+     * also after a song change has made the iterator scan its own copy of the index.
+     */
+    @Test
+    void addingOrRemovingDuringSortedScanFailsFast() {
+        Playlist playlist = new Playlist();
+        Song unicorn = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        playlist.addSong(unicorn);
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        playlist.setScanningOrder(ScanningOrder.NAME);
+
+        Iterator<Song> songs = playlist.iterator();
+        songs.next().setDuration(60);
+        playlist.removeSong(unicorn);
+        assertThrows(ConcurrentModificationException.class, songs::hasNext);
+
+        Iterator<Song> others = playlist.iterator();
+        playlist.addSong(new Song("Le Freak", "Chic", Song.Genre.DISCO, 307));
+        assertThrows(ConcurrentModificationException.class, others::next);
+    }
+
+    /**
+     * A change made to a song handed out by a clone shows in the clone only.
+     */
+    @Test
+    void changesThroughTheCloneStayInTheClone() {
+        Playlist original = new Playlist();
+        original.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        original.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        Playlist clone = original.clone();
+
+        Song handedOut = clone.iterator().next();
+        handedOut.setDuration(100);
+        handedOut.setGenre(Song.Genre.ROCK);
+
+        assertEquals("[(Unicorn, Noa Kirel, ROCK, 1:40), (Take Five, Dave Brubeck, JAZZ, 2:55)]", clone.toString());
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 2:55)]",
+                original.toString());
+    }
+
+    /**
+     * A change made to a song of the original, whether handed out by it or kept by the caller who added it,
+     * shows in the original only.
+     */
+    @Test
+    void changesThroughTheOriginalStayInTheOriginal() {
+        Playlist original = new Playlist();
+        Song unicorn = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        original.addSong(unicorn);
+        original.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        Playlist clone = original.clone();
+        clone.iterator().next();
+
+        unicorn.setDuration(200);
+        Iterator<Song> songs = original.iterator();
+        songs.next();
+        songs.next().setGenre(Song.Genre.ROCK);
+
+        assertEquals("[(Unicorn, Noa Kirel, POP, 3:20), (Take Five, Dave Brubeck, ROCK, 2:55)]",
+                original.toString());
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 2:55)]", clone.toString());
+    }
+
+    /**
+     * A song added to a clone belongs to it, so its changes show in the clone, but not in a clone of the clone.
+     */
+    @Test
+    void songsAddedToCloneFollowTheirChanges() {
+        Playlist original = new Playlist();
+        original.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        Playlist clone = original.clone();
+        Song added = new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175);
+        clone.addSong(added);
+        Playlist cloneOfClone = clone.clone();
+
+        added.setDuration(60);
+
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 1:00)]", clone.toString());
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51), (Take Five, Dave Brubeck, JAZZ, 2:55)]",
+                cloneOfClone.toString());
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51)]", original.toString());
+    }
+
+    /**
+     * A clone hands out its own copy of a shared song, made once, while the original hands out the song itself.
+     */
+    @Test
+    void cloneHandsOutItsOwnCopies() {
+        Playlist original = new Playlist();
+        Song song = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        original.addSong(song);
+        Playlist clone = original.clone();
+
+        Song copy = clone.iterator().next();
+        assertNotSame(song, copy);
+        assertEquals(song, copy);
+        assertSame(copy, clone.iterator().next());
+        assertSame(song, original.iterator().next());
+    }
+
+    /**
+     * Songs changed while the original is scanned keep their old durations and order in a clone.
+     */
+    @Test
+    void cloneKeepsOldDurationsOfSongsChangedInTheOriginal() {
+        Playlist original = new Playlist();
+        original.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        original.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        original.addSong(new Song("Le Freak", "Chic", Song.Genre.DISCO, 307));
+        Playlist clone = original.clone();
+        original.setScanningOrder(ScanningOrder.DURATION);
+        clone.setScanningOrder(ScanningOrder.DURATION);
+
+        for (Song song : original) {
+            song.setDuration(400 - song.getDuration());
+        }
+
+        clone.filterDuration(172, 400);
+        List<String> kept = new ArrayList<>();
+        clone.forEach(song -> kept.add(song.getName()));
+        assertEquals(List.of("Take Five", "Le Freak"), kept);
+    }
+
+    /**
+     * tryAddSong reports a song already in the playlist by returning false, and leaves the playlist unchanged.
+     */
+    @Test
+    void tryAddSongDoesNotThrow() {
+        Playlist playlist = new Playlist();
+        assertTrue(playlist.tryAddSong(new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171)));
+        assertFalse(playlist.tryAddSong(new Song("Unicorn", "Noa Kirel", Song.Genre.ROCK, 60)));
+        assertThrows(SongAlreadyExistsException.class,
+                () -> playlist.addSong(new Song("Unicorn", "Noa Kirel", Song.Genre.ROCK, 60)));
+        assertEquals("[(Unicorn, Noa Kirel, POP, 2:51)]", playlist.toString());
+    }
+
+    /**
+     * A parallel stream over the playlist sees the shown songs in scanning order,
+     * as they were when its spliterator was created.
+     */
+    @Test
+    void spliteratorKeepsScanningOrderAndFilters() {
+        Playlist playlist = new Playlist();
+        for (int i = 0; i < 500; i++) {
+            playlist.addSong(new Song("Song " + i, "Artist", i % 2 == 0 ? Song.Genre.POP : Song.Genre.ROCK, 500 - i));
+        }
+        playlist.setScanningOrder(ScanningOrder.DURATION);
+        playlist.filterGenre(Song.Genre.POP);
+
+        Spliterator<Song> songs = playlist.spliterator();
+        assertEquals(250, songs.estimateSize());
+        assertTrue(songs.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED));
+        playlist.addSong(new Song("Late", "Artist", Song.Genre.POP, 1));
+        List<Integer> durations = StreamSupport.stream(songs, true)
+                .map(Song::getDuration).collect(Collectors.toList());
+        assertEquals(250, durations.size());
+        for (int i = 0; i < durations.size(); i++) {
+            assertEquals(2 + 2 * i, durations.get(i));
+        }
+    }
+}
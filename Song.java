@@ -1,12 +1,34 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * A class representing a song.
+ * Its name and artist are either kept as strings or stored in a {@link StringArena}, off the heap;
+ * a song stored in an arena keeps the arena alive, so the arena is freed with the last song stored in it.
+ * The genre and duration of a song change one at a time, under the lock of the song, and each change updates
+ * the indexes of the playlists holding the song. A {@link ConcurrentPlaylist} takes its own lock for each update
+ * and adds a song only under the lock of the song, so a song it holds can be changed from any thread.
+ * The playlists holding a song are recorded in a list that is safe to share between threads.
  * Implements the {@link Cloneable} interface.
  */
 public class Song implements Cloneable {
+    private static final int MAX_DURATION_LENGTH = 16;
+    private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
     private final String name;
     private final String artist;
+    private final StringArena strings;
+    private final int nameOffset;
+    private final int artistOffset;
+    private int hash;
     private Genre genre;
     private int duration;
+    private String formattedDuration;
+    private List<WeakReference<Playlist>> owners;
 
     /**
      * Constructs a new Song object with the specified name, artist, genre, and duration.
@@ -19,26 +41,135 @@ public class Song implements Cloneable {
     public Song(String name, String artist, Genre genre, int duration) {
         this.name = name;
         this.artist = artist;
+        this.strings = null;
+        this.nameOffset = -1;
+        this.artistOffset = -1;
+        this.hash = mix(hashChars(hashChars(FNV_OFFSET_BASIS, name), artist));
+        this.genre = genre;
+        this.duration = duration;
+        this.owners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Constructs a new Song object whose name and artist are stored in the given arena instead of on the heap.
+     * Songs stored in the same arena are compared without decoding their names and artists.
+     *
+     * @param strings  the arena to store the name and artist in
+     * @param name     the name of the song, not null
+     * @param artist   the artist of the song, not null
+     * @param genre    the genre of the song
+     * @param duration the duration of the song in seconds
+     */
+    public Song(StringArena strings, String name, String artist, Genre genre, int duration) {
+        this(strings, strings.intern(name), strings.intern(artist), genre, duration);
+    }
+
+    /**
+     * Constructs a new Song object from the offsets of its name and artist in the given arena.
+     *
+     * @param strings      the arena holding the name and artist
+     * @param nameOffset   the offset of the name in the arena
+     * @param artistOffset the offset of the artist in the arena
+     * @param genre        the genre of the song
+     * @param duration     the duration of the song in seconds
+     */
+    Song(StringArena strings, int nameOffset, int artistOffset, Genre genre, int duration) {
+        this.name = null;
+        this.artist = null;
+        this.strings = strings;
+        this.nameOffset = nameOffset;
+        this.artistOffset = artistOffset;
         this.genre = genre;
         this.duration = duration;
+        this.owners = new CopyOnWriteArrayList<>();
     }
 
     /**
-     * Returns the name of the song.
+     * Returns the name of the song, decoded from its arena if it is stored in one.
      *
      * @return the name of the song
      */
     public String getName() {
-        return name;
+        return strings == null ? name : strings.get(nameOffset);
     }
 
     /**
-     * Returns the artist of the song.
+     * Returns the artist of the song, decoded from its arena if it is stored in one.
      *
      * @return the artist of the song
      */
     public String getArtist() {
-        return artist;
+        return strings == null ? artist : strings.get(artistOffset);
+    }
+
+    /**
+     * Checks whether the name and artist of the song are stored in the given arena.
+     *
+     * @param arena the arena to check
+     * @return true if the song is stored in the arena, false otherwise
+     */
+    boolean isStoredIn(StringArena arena) {
+        return strings != null && strings == arena;
+    }
+
+    /**
+     * Returns the offset of the name of the song in its arena.
+     *
+     * @return the offset of the name, or -1 if the song is not stored in an arena
+     */
+    int nameOffset() {
+        return nameOffset;
+    }
+
+    /**
+     * Returns the offset of the artist of the song in its arena.
+     *
+     * @return the offset of the artist, or -1 if the song is not stored in an arena
+     */
+    int artistOffset() {
+        return artistOffset;
+    }
+
+    /**
+     * Compares two songs by name, then by artist, in the order of the code points of the strings.
+     * Songs stored in the same arena are compared on their encoded bytes, without decoding them.
+     *
+     * @param first  the first song
+     * @param second the second song
+     * @return a negative number, zero or a positive number as the first song sorts before, with or after the second
+     */
+    static int compareByName(Song first, Song second) {
+        if (first.strings != null && first.strings == second.strings) {
+            int result = first.strings.compare(first.nameOffset, second.nameOffset);
+            return result != 0 ? result : first.strings.compare(first.artistOffset, second.artistOffset);
+        }
+        int result = compareCodePoints(first.getName(), second.getName());
+        return result != 0 ? result : compareCodePoints(first.getArtist(), second.getArtist());
+    }
+
+    /**
+     * Compares two strings in the order of their code points, which is the order of their UTF-8 bytes in an arena.
+     * It differs from {@link String#compareTo} only where characters above U+FFFF, stored as surrogate pairs,
+     * meet characters from U+E000 to U+FFFF: the surrogates are moved above those characters before comparing.
+     *
+     * @param first  the first string
+     * @param second the second string
+     * @return a negative number, zero or a positive number as the first string sorts before, with or after the second
+     */
+    private static int compareCodePoints(String first, String second) {
+        int common = Math.min(first.length(), second.length());
+        for (int i = 0; i < common; i++) {
+            char a = first.charAt(i);
+            char b = second.charAt(i);
+            if (a != b) {
+                if (a >= Character.MIN_SURROGATE && b >= Character.MIN_SURROGATE) {
+                    a += a > Character.MAX_SURROGATE ? -0x800 : 0x2000;
+                    b += b > Character.MAX_SURROGATE ? -0x800 : 0x2000;
+                }
+                return a - b;
+            }
+        }
+        return first.length() - second.length();
     }
 
     /**
@@ -60,21 +191,95 @@ public class Song implements Cloneable {
     }
 
     /**
-     * Sets the genre of the song.
+     * Sets the genre of the song, and updates the indexes of the playlists holding it.
+     * As for any other change to a plain {@link Playlist}, no other thread may use a plain playlist
+     * holding the song meanwhile.
      *
      * @param genre the genre of the song
      */
-    public void setGenre(Genre genre) {
+    public synchronized void setGenre(Genre genre) {
+        notifyChanging();
         this.genre = genre;
+        notifyChanged();
     }
 
     /**
-     * Sets the duration of the song in seconds.
+     * Sets the duration of the song in seconds, and updates the indexes of the playlists holding it.
+     * As for any other change to a plain {@link Playlist}, no other thread may use a plain playlist
+     * holding the song meanwhile.
      *
      * @param duration the duration of the song in seconds
      */
-    public void setDuration(int duration) {
+    public synchronized void setDuration(int duration) {
+        notifyChanging();
         this.duration = duration;
+        this.formattedDuration = null;
+        notifyChanged();
+    }
+
+    /**
+     * Records that the given playlist holds this song, so that it is told when the song changes.
+     * Only a weak reference is kept, so the song does not keep the playlist alive;
+     * the references of the playlists that have been garbage collected are dropped first.
+     *
+     * @param playlist the playlist that added the song
+     */
+    void addOwner(Playlist playlist) {
+        owners.removeIf(owner -> owner.get() == null);
+        owners.add(new WeakReference<>(playlist));
+    }
+
+    /**
+     * Forgets the given playlist, which no longer needs to be told about changes to this song.
+     *
+     * @param playlist the playlist to forget
+     */
+    void removeOwner(Playlist playlist) {
+        owners.removeIf(owner -> owner.get() == null || owner.get() == playlist);
+    }
+
+    /**
+     * Checks whether the given playlist has added this song and not forgotten it since.
+     *
+     * @param playlist the playlist to check
+     * @return true if the playlist is an owner of the song, false otherwise
+     */
+    boolean isOwnedBy(Playlist playlist) {
+        for (WeakReference<Playlist> owner : owners) {
+            if (owner.get() == playlist) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells the owners of this song that its duration or genre is about to change, so that they can
+     * take it out of their indexes while its old values still locate it. Drops the owners that have
+     * been garbage collected or no longer need to be told.
+     */
+    private void notifyChanging() {
+        for (WeakReference<Playlist> reference : owners) {
+            Playlist owner = reference.get();
+            if (owner == null || !owner.songChanging(this)) {
+                owners.remove(reference);
+            }
+        }
+    }
+
+    /**
+     * Tells the owners of this song that its duration or genre has changed.
+     * Drops the owners that have been garbage collected.
+     */
+    private void notifyChanged() {
+        for (WeakReference<Playlist> reference : owners) {
+            Playlist owner = reference.get();
+            if (owner != null) {
+                owner.songChanged(this);
+            } else {
+                owners.remove(reference);
+            }
+        }
     }
 
     /**
@@ -92,7 +297,10 @@ public class Song implements Cloneable {
             return false;
         }
         Song otherSong = (Song) other;
-        return this.name.equals(otherSong.name) && this.artist.equals(otherSong.artist);
+        if (strings != null && strings == otherSong.strings) {
+            return nameOffset == otherSong.nameOffset && artistOffset == otherSong.artistOffset;
+        }
+        return getName().equals(otherSong.getName()) && getArtist().equals(otherSong.getArtist());
     }
 
     /**
@@ -104,6 +312,7 @@ public class Song implements Cloneable {
     public Song clone() {
         try {
             Song clonedSong = (Song) super.clone();
+            clonedSong.owners = new CopyOnWriteArrayList<>();
             return clonedSong;
         } catch (CloneNotSupportedException e) {
             return null;
@@ -117,34 +326,79 @@ public class Song implements Cloneable {
      */
     @Override
     public String toString() {
-        return name + ", " + artist + ", " + genre + ", " + printDuration(duration);
+        StringBuilder result = new StringBuilder(64);
+        try {
+            writeTo(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes the string representation of the song to the given output,
+     * without building any intermediate strings.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing to the output fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(getName()).append(", ").append(getArtist()).append(", ");
+        out.append(genre == null ? "null" : genre.name()).append(", ");
+        out.append(getFormattedDuration());
     }
 
     /**
      * Returns the hash code value for the song.
+     * The hash depends only on the name and artist, which never change, so it is computed once;
+     * for a song stored in an arena, on first use, so that creating it decodes nothing.
+     * Both are hashed as one sequence of characters rather than combining their {@link String#hashCode()},
+     * whose collisions, such as "Aa" and "BB", would otherwise carry over to every song with those names.
      *
      * @return the hash code value for the song
      */
     @Override
     public int hashCode() {
-        int result = 0;
-        result = result + calculateAsciiSum(name);
-        result = result + calculateAsciiSum(artist);
+        int result = hash;
+        if (result == 0 && strings != null) {
+            result = mix(hashChars(hashChars(FNV_OFFSET_BASIS, getName()), getArtist()));
+            hash = result;
+        }
         return result;
     }
 
     /**
-     * Calculates the sum of ASCII values for the characters in a string.
+     * Continues a 32-bit FNV-1a hash with the characters of the given string, followed by its length,
+     * so that moving characters from the name to the artist changes the hash.
      *
-     * @param str the string
-     * @return the sum of ASCII values
+     * @param hash  the hash so far
+     * @param value the string to hash, or null
+     * @return the hash including the string
      */
-    private int calculateAsciiSum(String str) {
-        int sum = 0;
-        for (char c : str.toCharArray()) {
-            sum += (int) c;
+    private static int hashChars(int hash, String value) {
+        if (value == null) {
+            return (hash ^ -1) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
         }
-        return sum;
+        return (hash ^ value.length()) * FNV_PRIME;
+    }
+
+    /**
+     * Spreads the bits of a hash using the finalization step of MurmurHash3,
+     * so that similar names and artists get very different hash codes.
+     *
+     * @param hash the hash to mix
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
     }
 
     /**
@@ -166,22 +420,97 @@ public class Song implements Cloneable {
      * @return the formatted duration string
      */
     public String printDuration(int secondDuration) {
-        String songDuration;
+        if (secondDuration == duration) {
+            return getFormattedDuration();
+        }
+        char[] buffer = new char[MAX_DURATION_LENGTH];
+        return new String(buffer, 0, formatDuration(secondDuration, buffer, 0));
+    }
+
+    /**
+     * Returns the formatted duration of the song.
+     * The string is built on first use and kept until the duration changes.
+     *
+     * @return the formatted duration string
+     */
+    public String getFormattedDuration() {
+        String result = formattedDuration;
+        if (result == null) {
+            char[] buffer = new char[MAX_DURATION_LENGTH];
+            result = new String(buffer, 0, formatDuration(duration, buffer, 0));
+            formattedDuration = result;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the formatted duration of the song into the given buffer.
+     * At most 16 characters are written.
+     *
+     * @param buffer the buffer to write to
+     * @param offset the position in the buffer to start writing at
+     * @return the position in the buffer after the last written character
+     */
+    public int formatDuration(char[] buffer, int offset) {
+        return formatDuration(duration, buffer, offset);
+    }
+
+    /**
+     * Appends the formatted duration of the song to the given builder.
+     *
+     * @param out the builder to append to
+     * @return the builder
+     */
+    public StringBuilder formatDuration(StringBuilder out) {
+        return out.append(getFormattedDuration());
+    }
+
+    /**
+     * Writes a duration as "m:ss", or as "00:s" for durations shorter than a minute, into the given buffer.
+     *
+     * @param secondDuration the duration in seconds
+     * @param buffer         the buffer to write to
+     * @param offset         the position in the buffer to start writing at
+     * @return the position in the buffer after the last written character
+     */
+    private static int formatDuration(int secondDuration, char[] buffer, int offset) {
+        int position = offset;
         if (secondDuration > 59) {
-            int minutes = secondDuration / 60;
+            position = writeDigits(secondDuration / 60, buffer, position);
             int seconds = secondDuration % 60;
-            String StringMinutes;
-            String StringSeconds;
-            StringMinutes = "" + minutes + "";
-            if (seconds < 10) {
-                StringSeconds = "0" + seconds;
-            } else {
-                StringSeconds = "" + seconds + "";
-            }
-            return StringMinutes + ":" + StringSeconds;
+            buffer[position++] = ':';
+            buffer[position++] = (char) ('0' + seconds / 10);
+            buffer[position++] = (char) ('0' + seconds % 10);
         } else {
-            songDuration = "00:" + secondDuration;
+            buffer[position++] = '0';
+            buffer[position++] = '0';
+            buffer[position++] = ':';
+            position = writeDigits(secondDuration, buffer, position);
+        }
+        return position;
+    }
+
+    /**
+     * Writes the decimal digits of a number into the given buffer.
+     *
+     * @param value    the number to write
+     * @param buffer   the buffer to write to
+     * @param position the position in the buffer to start writing at
+     * @return the position in the buffer after the last written character
+     */
+    private static int writeDigits(int value, char[] buffer, int position) {
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[position++] = '-';
+            remaining = -remaining;
+        }
+        long divisor = 1;
+        while (remaining / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer[position++] = (char) ('0' + remaining / divisor % 10);
         }
-        return songDuration;
+        return position;
     }
 }
@@ -2,10 +2,33 @@
  * Exception thrown when attempting to add a song that already exists in the playlist.
  */
 public class SongAlreadyExistsException extends RuntimeException {
+    private static final SongAlreadyExistsException STACKLESS = new SongAlreadyExistsException(false);
+
     /**
      * Constructs a new SongAlreadyExistsException with a default error message.
      */
     public SongAlreadyExistsException() {
         super("Song already exists in the playlist.");
     }
+
+    /**
+     * Constructs a new SongAlreadyExistsException with a default error message,
+     * which records a stack trace and suppressed exceptions only if asked to.
+     *
+     * @param writableStackTrace whether the stack trace and suppressed exceptions are recorded
+     */
+    public SongAlreadyExistsException(boolean writableStackTrace) {
+        super("Song already exists in the playlist.", null, writableStackTrace, writableStackTrace);
+    }
+
+    /**
+     * Returns the shared stackless SongAlreadyExistsException, for imports that expect many duplicates
+     * and report them by throwing. It is built as a stackless {@link StackException} is, and can be shared
+     * for the same reasons.
+     *
+     * @return the shared stackless exception
+     */
+    public static SongAlreadyExistsException stackless() {
+        return STACKLESS;
+    }
 }
@@ -1,3 +1,6 @@
+import java.util.Arrays;
+import java.util.Collection;
+
 /**
  * A generic stack data structure.
  *
@@ -36,6 +39,108 @@ public interface Stack<E extends Cloneable> extends Iterable<E>, Cloneable {
      * @return true if the stack is empty, false otherwise
      */
     boolean isEmpty();
+    /**
+     * Pushes an element onto the top of the stack if there is room for it, without throwing.
+     *
+     * @param element the element to be pushed onto the stack
+     * @return true if the element was pushed, false if the stack is full
+     */
+    default boolean tryPush(E element) {
+        try {
+            push(element);
+            return true;
+        } catch (StackOverflowException e) {
+            return false;
+        }
+    }
+    /**
+     * Pops and returns the element at the top of the stack, or returns null if the stack is empty,
+     * without throwing. A stack that holds null elements must be checked with {@link #isEmpty()} instead.
+     *
+     * @return the element at the top of the stack, or null if the stack is empty
+     */
+    default E pollOrNull() {
+        return isEmpty() ? null : pop();
+    }
+    /**
+     * Pushes all elements of the array in order, so that the last one ends up on top.
+     * Either all elements are pushed or, if they do not fit, none of them.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @throws StackOverflowException if the stack cannot hold all the elements
+     */
+    default void pushAll(E[] elements) {
+        pushAll(Arrays.asList(elements));
+    }
+    /**
+     * Pushes all elements of the collection in iteration order, so that the last one ends up on top.
+     * Either all elements are pushed or, if they do not fit, none of them: this default pushes them
+     * one at a time and pops the pushed ones back if the stack overflows; implementations that know
+     * their capacity check it once instead.
+     *
+     * @param elements the elements to be pushed onto the stack
+     * @throws StackOverflowException if the stack cannot hold all the elements
+     */
+    default void pushAll(Collection<? extends E> elements) {
+        int pushed = 0;
+        try {
+            for (E element : elements) {
+                push(element);
+                pushed++;
+            }
+        } catch (StackOverflowException e) {
+            for (; pushed > 0; pushed--) {
+                pop();
+            }
+            throw e;
+        }
+    }
+    /**
+     * Pops the given number of elements into the start of the array, in stack order:
+     * the former top element is stored last, so that {@link #pushAll(Object[])} restores them.
+     * Either all elements are popped or, if there are not enough of them, none.
+     *
+     * @param count       the number of elements to pop
+     * @param destination the array receiving the popped elements
+     * @throws EmptyStackException      if the stack holds fewer than count elements
+     * @throws IllegalArgumentException if count is negative or larger than the array
+     */
+    default void popN(int count, E[] destination) {
+        checkPopCount(count, destination);
+        for (int i = count - 1; i >= 0; i--) {
+            destination[i] = pop();
+        }
+    }
+    /**
+     * Pops every element of the stack into the collection, from top to bottom.
+     *
+     * @param destination the collection receiving the popped elements
+     * @return the number of elements popped
+     */
+    default int drainTo(Collection<? super E> destination) {
+        int drained = 0;
+        while (!isEmpty()) {
+            destination.add(pop());
+            drained++;
+        }
+        return drained;
+    }
+    /**
+     * Checks the arguments of {@link #popN(int, Object[])} before anything is popped.
+     *
+     * @param count       the number of elements to pop
+     * @param destination the array receiving the popped elements
+     * @throws EmptyStackException      if the stack holds fewer than count elements
+     * @throws IllegalArgumentException if count is negative or larger than the array
+     */
+    private void checkPopCount(int count, E[] destination) {
+        if (count < 0 || count > destination.length) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        if (count > size()) {
+            throw new EmptyStackException();
+        }
+    }
     /**
      * Creates a shallow copy of the stack.
      *
@@ -1,6 +1,12 @@
 /**
  * An exception specific to stack operations.
  * Extends the {@link RuntimeException} class.
+ * <p>
+ * A stackless exception, created by {@link #StackException(String, boolean)} without a writable stack trace,
+ * records neither a stack trace nor suppressed exceptions, and its cause is fixed to null when it is created:
+ * {@link #initCause(Throwable)} throws an {@link IllegalStateException}, while {@link #setStackTrace}
+ * and {@link #addSuppressed(Throwable)} do nothing. Such an exception never changes after it is created,
+ * so the {@code stackless()} methods of the exceptions of this project share one instance between all threads.
  */
 public class StackException extends RuntimeException {
 
@@ -21,4 +27,15 @@ public class StackException extends RuntimeException {
     public StackException(String message, Throwable cause){
         super(message,cause);
     }
+
+    /**
+     * Constructs a new StackException with the specified detail message, which records a stack trace
+     * and suppressed exceptions only if asked to, and is stackless otherwise.
+     *
+     * @param message            the detail message
+     * @param writableStackTrace whether the stack trace and suppressed exceptions are recorded
+     */
+    protected StackException(String message, boolean writableStackTrace) {
+        super(message, null, writableStackTrace, writableStackTrace);
+    }
 }
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that the shared stackless exceptions cannot be changed by the code that catches them.
+ */
+class StackExceptionTest {
+    /**
+     * Each stackless method returns one instance without a stack trace, whose cause, stack trace
+     * and suppressed exceptions stay as they were created.
+     */
+    @Test
+    void stacklessExceptionsNeverChange() {
+        assertSame(EmptyStackException.stackless(), EmptyStackException.stackless());
+        assertSame(StackOverflowException.stackless(), StackOverflowException.stackless());
+        assertSame(SongAlreadyExistsException.stackless(), SongAlreadyExistsException.stackless());
+
+        for (RuntimeException shared : List.of(EmptyStackException.stackless(), StackOverflowException.stackless(),
+                SongAlreadyExistsException.stackless())) {
+            assertEquals(0, shared.getStackTrace().length);
+            assertThrows(IllegalStateException.class, () -> shared.initCause(new RuntimeException()));
+            shared.addSuppressed(new RuntimeException());
+            shared.setStackTrace(new Throwable().getStackTrace());
+            shared.fillInStackTrace();
+            assertNull(shared.getCause());
+            assertEquals(0, shared.getSuppressed().length);
+            assertEquals(0, shared.getStackTrace().length);
+        }
+    }
+
+    /**
+     * Exceptions created with a writable stack trace record where they were created.
+     */
+    @Test
+    void writableExceptionsRecordTheirStackTrace() {
+        for (RuntimeException exception : List.of(new EmptyStackException(true), new StackOverflowException(),
+                new SongAlreadyExistsException(true))) {
+            assertEquals("writableExceptionsRecordTheirStackTrace", exception.getStackTrace()[0].getMethodName());
+        }
+        assertEquals("The stack is empty.", new EmptyStackException(false).getMessage());
+    }
+}
@@ -3,6 +3,7 @@
  * Extends the {@link StackException} class.
  */
 public class StackOverflowException extends StackException {
+    private static final StackOverflowException STACKLESS = new StackOverflowException(false);
 
     /**
      * Constructs a new StackOverflowException with a default error message.
@@ -11,4 +12,24 @@ public class StackOverflowException extends StackException {
     public StackOverflowException() {
         super("The stack reached its full capacity.");
     }
+
+    /**
+     * Constructs a new StackOverflowException with the default error message,
+     * which records a stack trace only if asked to.
+     *
+     * @param writableStackTrace whether the stack trace is recorded
+     */
+    public StackOverflowException(boolean writableStackTrace) {
+        super("The stack reached its full capacity.", writableStackTrace);
+    }
+
+    /**
+     * Returns the shared stackless StackOverflowException, for loops that fill a bounded stack until it overflows.
+     * See {@link StackException} for why it can be shared.
+     *
+     * @return the shared stackless exception
+     */
+    public static StackOverflowException stackless() {
+        return STACKLESS;
+    }
 }
@@ -0,0 +1,236 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An append-only arena that stores deduplicated strings as UTF-8 in an off-heap buffer.
+ * Each string is identified by its offset in the arena, and equal strings always get the same offset,
+ * so strings can be tested for equality by comparing offsets and ordered without decoding them.
+ * An arena can be shared by many playlists and songs, and lives as long as any of them refers to it.
+ * Storing strings is not thread-safe, but the strings already stored can be read from any thread.
+ */
+public class StringArena {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE;
+    private static final int INITIAL_TABLE_SIZE = 64;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private ByteBuffer buffer;
+    private int used;
+    private int[] table;
+    private int count;
+
+    /**
+     * Constructs an empty StringArena.
+     */
+    public StringArena() {
+        this.buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+        this.used = 0;
+        this.table = new int[INITIAL_TABLE_SIZE];
+        this.count = 0;
+    }
+
+    /**
+     * Returns the offset of the given string, storing it in the arena if it is not there yet.
+     *
+     * @param value the string to store
+     * @return the offset of the string
+     * @throws IllegalStateException if the arena cannot hold the string, as it is limited to 2 GB
+     */
+    public int intern(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                int offset = append(bytes);
+                table[i] = offset + 1;
+                count++;
+                if (count * 2 > table.length) {
+                    rehash();
+                }
+                return offset;
+            }
+            if (matches(entry - 1, bytes)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the given string without storing it.
+     *
+     * @param value the string to look up
+     * @return the offset of the string, or -1 if it is not in the arena
+     */
+    public int offsetOf(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        for (int i = hash(bytes) & mask; table[i] != 0; i = (i + 1) & mask) {
+            if (matches(table[i] - 1, bytes)) {
+                return table[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the string stored at the given offset.
+     *
+     * @param offset the offset of the string
+     * @return the decoded string
+     */
+    public String get(int offset) {
+        int length = buffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        buffer.get(offset + LENGTH_BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the strings stored at the given offsets by their UTF-8 bytes, eight bytes at a time.
+     * This is the order of their code points, which matches {@link String#compareTo} except that
+     * characters above U+FFFF sort after all other characters.
+     *
+     * @param first  the offset of the first string
+     * @param second the offset of the second string
+     * @return a negative number, zero or a positive number as the first string sorts before, with or after the second
+     */
+    public int compare(int first, int second) {
+        if (first == second) {
+            return 0;
+        }
+        int firstLength = buffer.getInt(first);
+        int secondLength = buffer.getInt(second);
+        int common = Math.min(firstLength, secondLength);
+        int firstStart = first + LENGTH_BYTES;
+        int secondStart = second + LENGTH_BYTES;
+        int i = 0;
+        for (; i + Long.BYTES <= common; i += Long.BYTES) {
+            long a = buffer.getLong(firstStart + i);
+            long b = buffer.getLong(secondStart + i);
+            if (a != b) {
+                return Long.compareUnsigned(a, b);
+            }
+        }
+        for (; i < common; i++) {
+            int a = buffer.get(firstStart + i) & 0xFF;
+            int b = buffer.get(secondStart + i) & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return Integer.compare(firstLength, secondLength);
+    }
+
+    /**
+     * Returns the number of distinct strings in the arena.
+     *
+     * @return the number of strings
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the number of off-heap bytes used by the stored strings.
+     *
+     * @return the number of used bytes
+     */
+    public int usedBytes() {
+        return used;
+    }
+
+    /**
+     * Writes the given bytes at the end of the arena, growing the buffer if needed.
+     * The buffer at least doubles when it grows, up to the largest capacity a buffer can have.
+     *
+     * @param bytes the UTF-8 bytes of the string
+     * @return the offset of the written string
+     * @throws IllegalStateException if the arena would grow beyond the largest capacity
+     */
+    private int append(byte[] bytes) {
+        long needed = (long) used + LENGTH_BYTES + bytes.length;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("The arena cannot grow beyond " + MAX_CAPACITY + " bytes");
+        }
+        if (needed > buffer.capacity()) {
+            int capacity = (int) Math.min(Math.max(buffer.capacity() * 2L, needed), MAX_CAPACITY);
+            ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            grown.put(0, buffer, 0, used);
+            buffer = grown;
+        }
+        int offset = used;
+        buffer.putInt(offset, bytes.length);
+        buffer.put(offset + LENGTH_BYTES, bytes);
+        used = (int) needed;
+        return offset;
+    }
+
+    /**
+     * Checks whether the string stored at the given offset has exactly the given bytes.
+     *
+     * @param offset the offset of the stored string
+     * @param bytes  the bytes to compare with
+     * @return true if the bytes are equal, false otherwise
+     */
+    private boolean matches(int offset, byte[] bytes) {
+        if (buffer.getInt(offset) != bytes.length) {
+            return false;
+        }
+        int start = offset + LENGTH_BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the size of the lookup table and reinserts every stored string.
+     */
+    private void rehash() {
+        int[] grown = new int[table.length * 2];
+        int mask = grown.length - 1;
+        for (int entry : table) {
+            if (entry == 0) {
+                continue;
+            }
+            int offset = entry - 1;
+            int length = buffer.getInt(offset);
+            int hash = 1;
+            for (int j = 0; j < length; j++) {
+                hash = 31 * hash + buffer.get(offset + LENGTH_BYTES + j);
+            }
+            int i = mix(hash) & mask;
+            while (grown[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            grown[i] = entry;
+        }
+        table = grown;
+    }
+
+    /**
+     * Computes the lookup hash of the given UTF-8 bytes.
+     *
+     * @param bytes the bytes to hash
+     * @return the hash of the bytes
+     */
+    private static int hash(byte[] bytes) {
+        return mix(Arrays.hashCode(bytes));
+    }
+
+    /**
+     * Spreads the bits of a hash so that the low bits used by the table are well distributed.
+     *
+     * @param hash the hash to mix
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
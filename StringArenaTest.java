@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@link StringArena} stores each string once and compares strings without decoding them,
+ * and that songs stored in an arena behave as songs that keep their strings.
+ */
+class StringArenaTest {
+    /**
+     * Equal strings get the same offset and distinct strings different ones, also once the buffer
+     * and the lookup table have grown, and every string is decoded back unchanged.
+     */
+    @Test
+    void storesEachStringOnce() {
+        StringArena arena = new StringArena();
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            offsets.add(arena.intern("Song " + i + " é中🎵"));
+        }
+
+        assertEquals(2000, arena.size());
+        assertTrue(arena.usedBytes() > 4096);
+        for (int i = 0; i < 2000; i++) {
+            String value = "Song " + i + " é中🎵";
+            assertEquals(offsets.get(i), arena.intern(value));
+            assertEquals(offsets.get(i), arena.offsetOf(value));
+            assertEquals(value, arena.get(offsets.get(i)));
+        }
+        assertEquals(2000, arena.size());
+        assertEquals(-1, arena.offsetOf("Missing"));
+    }
+
+    /**
+     * Stored strings compare in the order of their code points, whatever their lengths.
+     */
+    @Test
+    void comparesInCodePointOrder() {
+        StringArena arena = new StringArena();
+        List<String> sorted = List.of("", "A", "Abba", "Abbey Road, Side A", "Abbey Road, Side B", "B",
+                "été", "￮", "🎵");
+
+        for (String first : sorted) {
+            for (String second : sorted) {
+                int expected = Integer.signum(sorted.indexOf(first) - sorted.indexOf(second));
+                assertEquals(expected, Integer.signum(arena.compare(arena.intern(first), arena.intern(second))),
+                        first + " vs " + second);
+            }
+        }
+    }
+
+    /**
+     * A song stored in an arena equals the song that keeps the same strings, has the same hash code,
+     * and sorts by name in a playlist as it would with its strings on the heap.
+     */
+    @Test
+    void songsStoredInArenaMatchSongsOnHeap() {
+        StringArena arena = new StringArena();
+        Song stored = new Song(arena, "Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+        Song onHeap = new Song("Unicorn", "Noa Kirel", Song.Genre.POP, 171);
+
+        assertEquals(onHeap, stored);
+        assertEquals(stored, onHeap);
+        assertEquals(onHeap.hashCode(), stored.hashCode());
+        assertEquals(stored, new Song(arena, "Unicorn", "Noa Kirel", Song.Genre.ROCK, 60));
+        assertNotEquals(stored, new Song(arena, "Unicorn", "Noa", Song.Genre.POP, 171));
+        assertEquals("Unicorn, Noa Kirel, POP, 2:51", stored.toString());
+
+        Playlist playlist = new Playlist();
+        playlist.addSong(new Song(arena, "🎵", "Unknown", null, 100));
+        playlist.addSong(new Song("￮", "Unknown", null, 100));
+        playlist.addSong(stored);
+        playlist.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+        playlist.setScanningOrder(ScanningOrder.NAME);
+        List<String> names = new ArrayList<>();
+        playlist.forEach(song -> names.add(song.getName()));
+        assertEquals(List.of("Take Five", "Unicorn", "￮", "🎵"), names);
+    }
+
+    /**
+     * A columnar playlist sharing the arena of its songs hands out songs stored in that arena.
+     */
+    @Test
+    void columnarPlaylistHandsOutSongsStoredInItsArena() {
+        StringArena arena = new StringArena();
+        ColumnarPlaylist columnar = new ColumnarPlaylist(arena);
+        columnar.addSong(new Song(arena, "Unicorn", "Noa Kirel", Song.Genre.POP, 171));
+        columnar.addSong(new Song("Take Five", "Dave Brubeck", Song.Genre.JAZZ, 175));
+
+        for (Song song : columnar) {
+            assertTrue(song.isStoredIn(arena));
+        }
+        assertEquals(4, arena.size());
+        assertTrue(columnar.removeSong(new Song("Unicorn", "Noa Kirel", null, 0)));
+        assertEquals(1, columnar.size());
+    }
+}
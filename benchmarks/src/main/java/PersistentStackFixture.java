@@ -0,0 +1,47 @@
+import benchmarks.StackWorkload;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Implements the stack benchmarks over a {@link PersistentStack}, next to the stack classes in the default package.
+ */
+public class PersistentStackFixture implements StackWorkload {
+    private PersistentStack<StackElement> stack;
+    private StackElement pushed;
+
+    @Override
+    public void setUp(int size) {
+        stack = new PersistentStack<>();
+        for (int i = 0; i < size; i++) {
+            stack.push(new StackElement(i));
+        }
+        pushed = new StackElement(-1);
+    }
+
+    @Override
+    public void push() {
+        stack.push(pushed);
+    }
+
+    @Override
+    public Object pop() {
+        return stack.pop();
+    }
+
+    @Override
+    public void iterate(Blackhole blackhole) {
+        for (StackElement element : stack) {
+            blackhole.consume(element);
+        }
+    }
+
+    @Override
+    public Object cloneOf() {
+        return stack.clone();
+    }
+
+    @Override
+    public int popFromClone() {
+        PersistentStack<StackElement> copy = stack.clone();
+        return copy.pop().value();
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.EnumSet;
+import java.util.Random;
+
+import benchmarks.PlaylistWorkload;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Implements the playlist benchmarks, next to the playlist classes in the default package.
+ * Song i has the duration i; the songs below the selectivity threshold share one artist and one genre
+ * that no other song has, so every filter keeps exactly the same songs.
+ */
+public class PlaylistFixture implements PlaylistWorkload {
+    private static final String KEPT_ARTIST = "kept";
+    private static final Song.Genre KEPT_GENRE = Song.Genre.JAZZ;
+    private static final Song.Genre[] OTHER_GENRES =
+            EnumSet.complementOf(EnumSet.of(KEPT_GENRE)).toArray(new Song.Genre[0]);
+    private static final int SPARE_SONGS = 1024;
+
+    private Playlist playlist;
+    private Song[] songs;
+    private Song[] spareSongs;
+    private int kept;
+    private int nextSong;
+    private int nextSpare;
+    private ScanningOrder order;
+
+    @Override
+    public void setUp(int size, double selectivity) {
+        kept = (int) Math.round(size * selectivity);
+        songs = new Song[size];
+        for (int i = 0; i < size; i++) {
+            songs[i] = i < kept
+                    ? new Song("song" + i, KEPT_ARTIST, KEPT_GENRE, i)
+                    : new Song("song" + i, "artist" + i % 100, OTHER_GENRES[i % OTHER_GENRES.length], i);
+        }
+        Random random = new Random(42);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Song swapped = songs[i];
+            songs[i] = songs[j];
+            songs[j] = swapped;
+        }
+        playlist = new Playlist();
+        for (Song song : songs) {
+            playlist.addSong(song);
+        }
+        spareSongs = new Song[SPARE_SONGS];
+        for (int i = 0; i < SPARE_SONGS; i++) {
+            spareSongs[i] = new Song("spare" + i, "spare", OTHER_GENRES[i % OTHER_GENRES.length], random.nextInt(size));
+        }
+        order = ScanningOrder.ADDING;
+    }
+
+    @Override
+    public void addAndRemoveSong() {
+        Song song = spareSongs[nextSpare];
+        nextSpare = (nextSpare + 1) % SPARE_SONGS;
+        playlist.addSong(song);
+        playlist.removeSong(song);
+    }
+
+    @Override
+    public void removeAndAddSong() {
+        Song song = songs[nextSong];
+        nextSong = (nextSong + 1) % songs.length;
+        playlist.removeSong(song);
+        playlist.addSong(song);
+    }
+
+    @Override
+    public void setScanningOrder() {
+        ScanningOrder[] orders = ScanningOrder.values();
+        order = orders[(order.ordinal() + 1) % orders.length];
+        playlist.setScanningOrder(order);
+    }
+
+    @Override
+    public void setScanningOrder(String order) {
+        this.order = ScanningOrder.valueOf(order);
+        playlist.setScanningOrder(this.order);
+    }
+
+    @Override
+    public void filter(String filter) {
+        switch (filter) {
+            case "artist":
+                playlist.filterArtist(KEPT_ARTIST);
+                break;
+            case "genre":
+                playlist.filterGenre(KEPT_GENRE);
+                break;
+            case "duration":
+                playlist.filterDuration(kept - 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter: " + filter);
+        }
+    }
+
+    @Override
+    public void iterate(Blackhole blackhole) {
+        for (Song song : playlist) {
+            blackhole.consume(song);
+        }
+    }
+
+    @Override
+    public boolean equalsClone() {
+        return playlist.equals(playlist.clone());
+    }
+
+    @Override
+    public int hashCodeOf() {
+        return playlist.hashCode();
+    }
+
+    @Override
+    public Object cloneOf() {
+        return playlist.clone();
+    }
+
+    @Override
+    public String toStringOf() {
+        return playlist.toString();
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * A minimal cloneable element, pushed onto the stacks under test by the stack fixtures.
+ */
+class StackElement implements Cloneable {
+    private final int value;
+
+    /**
+     * Constructs a StackElement.
+     *
+     * @param value the value of the element
+     */
+    StackElement(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of the element.
+     *
+     * @return the value of the element
+     */
+    int value() {
+        return value;
+    }
+
+    /**
+     * Creates and returns a copy of this element.
+     *
+     * @return a copy of this element
+     */
+    @Override
+    public StackElement clone() {
+        try {
+            return (StackElement) super.clone();
+        } catch (CloneNotSupportedException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures pushing, popping, iterating and cloning an ArrayStack holding the given number of elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ArrayStackBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private StackWorkload stack;
+
+    @Setup
+    public void setUp() {
+        stack = Workloads.create("ArrayStackFixture", StackWorkload.class);
+        stack.setUp(size);
+    }
+
+    @Benchmark
+    public Object pushAndPop() {
+        stack.push();
+        return stack.pop();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        stack.iterate(blackhole);
+    }
+
+    @Benchmark
+    public Object cloneOf() {
+        return stack.cloneOf();
+    }
+}
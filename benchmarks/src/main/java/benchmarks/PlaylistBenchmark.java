@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the mutations, iteration and object methods of Playlist without filters.
+ * The largest sizes need a large heap, which the forked JVM is given.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class PlaylistBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"ADDING", "NAME", "DURATION"})
+    private String order;
+
+    private PlaylistWorkload playlist;
+
+    @Setup
+    public void setUp() {
+        playlist = Workloads.create("PlaylistFixture", PlaylistWorkload.class);
+        playlist.setUp(size, 1.0);
+        playlist.setScanningOrder(order);
+    }
+
+    @Benchmark
+    public void addSong() {
+        playlist.addAndRemoveSong();
+    }
+
+    @Benchmark
+    public void removeSong() {
+        playlist.removeAndAddSong();
+    }
+
+    @Benchmark
+    public void setScanningOrder() {
+        playlist.setScanningOrder();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        playlist.iterate(blackhole);
+    }
+
+    @Benchmark
+    public boolean equalsClone() {
+        return playlist.equalsClone();
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return playlist.hashCodeOf();
+    }
+
+    @Benchmark
+    public Object cloneOf() {
+        return playlist.cloneOf();
+    }
+
+    @Benchmark
+    public String toStringOf() {
+        return playlist.toStringOf();
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures applying each filter of Playlist and iterating over the songs it keeps.
+ * Filters are resolved lazily by the next iteration, so the two are measured together.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class PlaylistFilterBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"0.01", "0.5", "0.99"})
+    private double selectivity;
+
+    @Param({"artist", "genre", "duration"})
+    private String filter;
+
+    private PlaylistWorkload playlist;
+
+    @Setup
+    public void setUp() {
+        playlist = Workloads.create("PlaylistFixture", PlaylistWorkload.class);
+        playlist.setUp(size, selectivity);
+    }
+
+    @Benchmark
+    public void filterAndIterate(Blackhole blackhole) {
+        playlist.filter(filter);
+        playlist.iterate(blackhole);
+    }
+}
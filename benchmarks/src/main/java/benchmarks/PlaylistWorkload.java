@@ -0,0 +1,83 @@
+package benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The playlist operations measured by {@link PlaylistBenchmark} and {@link PlaylistFilterBenchmark}.
+ * JMH cannot generate code for benchmarks in the default package, where the playlist classes live,
+ * so the operations are implemented there by {@code PlaylistFixture} and reached through this interface.
+ */
+public interface PlaylistWorkload {
+    /**
+     * Builds the playlist under test. Its songs are added in a shuffled order, so that the adding, name
+     * and duration orders all differ, and the given share of them is kept by every kind of filter.
+     *
+     * @param size        the number of songs in the playlist
+     * @param selectivity the share of the songs kept by the filters, between 0 and 1
+     */
+    void setUp(int size, double selectivity);
+
+    /**
+     * Adds a song that is not in the playlist and removes it again.
+     */
+    void addAndRemoveSong();
+
+    /**
+     * Removes a song of the playlist and adds it back.
+     */
+    void removeAndAddSong();
+
+    /**
+     * Switches the playlist to the next scanning order.
+     */
+    void setScanningOrder();
+
+    /**
+     * Sets the scanning order of the playlist.
+     *
+     * @param order the name of a scanning order
+     */
+    void setScanningOrder(String order);
+
+    /**
+     * Applies a filter to the playlist, replacing the current one of the same kind.
+     *
+     * @param filter "artist", "genre" or "duration"
+     */
+    void filter(String filter);
+
+    /**
+     * Iterates over the songs of the playlist.
+     *
+     * @param blackhole the sink for the songs
+     */
+    void iterate(Blackhole blackhole);
+
+    /**
+     * Compares the playlist with a clone of it.
+     *
+     * @return the result of equals
+     */
+    boolean equalsClone();
+
+    /**
+     * Computes the hash code of the playlist.
+     *
+     * @return the hash code
+     */
+    int hashCodeOf();
+
+    /**
+     * Clones the playlist.
+     *
+     * @return the clone
+     */
+    Object cloneOf();
+
+    /**
+     * Renders the playlist as a string.
+     *
+     * @return the string representation
+     */
+    String toStringOf();
+}
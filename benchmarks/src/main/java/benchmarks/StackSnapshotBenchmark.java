@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the cost of taking a snapshot of a PersistentStack with cloning an ArrayStack:
+ * each operation clones the stack and pops one element from the clone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StackSnapshotBenchmark {
+    @Param({"ArrayStackFixture", "PersistentStackFixture"})
+    private String fixture;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private StackWorkload stack;
+
+    @Setup
+    public void setUp() {
+        stack = Workloads.create(fixture, StackWorkload.class);
+        stack.setUp(size);
+    }
+
+    @Benchmark
+    public void popFromClone(Blackhole blackhole) {
+        blackhole.consume(stack.popFromClone());
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The stack operations measured by {@link ArrayStackBenchmark} and {@link StackSnapshotBenchmark},
+ * implemented by {@code ArrayStackFixture} and {@code PersistentStackFixture} in the default package
+ * for the same reason as {@link PlaylistWorkload}.
+ */
+public interface StackWorkload {
+    /**
+     * Builds the stack under test.
+     *
+     * @param size the number of elements in the stack
+     */
+    void setUp(int size);
+
+    /**
+     * Pushes an element onto the stack.
+     */
+    void push();
+
+    /**
+     * Pops the element pushed last by {@link #push()}.
+     *
+     * @return the popped element
+     */
+    Object pop();
+
+    /**
+     * Iterates over the elements of the stack.
+     *
+     * @param blackhole the sink for the elements
+     */
+    void iterate(Blackhole blackhole);
+
+    /**
+     * Clones the stack.
+     *
+     * @return the clone
+     */
+    Object cloneOf();
+
+    /**
+     * Clones the stack and pops the top element of the clone, so that the clone is used.
+     *
+     * @return the value of the element popped from the clone
+     */
+    int popFromClone();
+}
@@ -0,0 +1,27 @@
+package benchmarks;
+
+/**
+ * Creates the workloads implemented in the default package, which code in a named package
+ * can only reach by name.
+ */
+final class Workloads {
+    private Workloads() {
+    }
+
+    /**
+     * Creates an instance of the given default-package class.
+     *
+     * @param className the name of the class
+     * @param type      the workload interface the class implements
+     * @param <T>       the workload type
+     * @return a new instance of the class
+     * @throws IllegalStateException if the class cannot be instantiated
+     */
+    static <T> T create(String className, Class<T> type) {
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create workload " + className, e);
+        }
+    }
+}